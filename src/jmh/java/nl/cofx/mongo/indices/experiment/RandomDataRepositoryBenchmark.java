@@ -0,0 +1,171 @@
+package nl.cofx.mongo.indices.experiment;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import nl.cofx.mongo.indices.experiment.keyset.KeysetRequest;
+import nl.cofx.mongo.indices.experiment.keyset.KeysetSlice;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexOperations;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the latency and throughput of every query of {@link RandomDataRepository}
+ * for several index layouts and collection sizes.
+ * <p>
+ * The benchmarks run against the MongoDB instance at {@code MONGODB_URI}, which defaults to a local instance.
+ * Sample time mode reports percentiles of the latency, such as p50 and p99.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@Fork(1)
+@Measurement(iterations = 5, time = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+public class RandomDataRepositoryBenchmark {
+
+    private static final String DATABASE_NAME = "benchmark";
+    private static final String COLLECTION_NAME = "randomData";
+    private static final long SEED = 20230401L;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int WRITERS = 4;
+    private static final Pageable PAGE = Pageable.ofSize(10);
+    private static final int DEEP_PAGE_NUMBER = 100;
+
+    public enum IndexLayout {
+        NONE(),
+        STRING_LONG("{ randomString: 1, randomLong: 1 }"),
+        BOOLEAN_STRING_LONG("{ randomBoolean: 1, randomString: 1, randomLong: 1 }"),
+        STRING_LONG_BOOLEAN("{ randomString: 1, randomLong: 1, randomBoolean: 1 }"),
+        SINGLE_FIELDS("{ randomBoolean: 1 }", "{ randomLong: 1 }", "{ randomString: 1 }"),
+        KEYSET("{ randomBoolean: 1, _id: 1 }", "{ randomLong: 1, _id: 1 }", "{ randomString: 1, _id: 1 }");
+
+        private final List<MongoIndexSpecification> specifications;
+
+        IndexLayout(String... definitions) {
+            specifications = Stream.of(definitions)
+                    .map(definition -> MongoIndexSpecification.builder()
+                            .definition(definition)
+                            .build())
+                    .toList();
+        }
+    }
+
+    @Param
+    public IndexLayout indexLayout;
+
+    @Param({ "100000", "1000000" })
+    public int collectionSize;
+
+    private MongoClient mongoClient;
+    private RandomDataRepository repository;
+    private RandomData sample;
+    private KeysetRequest deepKeysetRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var uri = Objects.requireNonNullElse(System.getenv("MONGODB_URI"), "mongodb://localhost:27017");
+        mongoClient = MongoClients.create(uri);
+        var mongoTemplate = new MongoTemplate(mongoClient, DATABASE_NAME);
+        repository = new MongoRepositoryFactory(mongoTemplate).getRepository(RandomDataRepository.class,
+                RepositoryFragments.just(new RandomDataKeysetRepositoryImpl(mongoTemplate)));
+
+        loadData(mongoTemplate);
+
+        var mongoIndexOperations = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient);
+        mongoIndexOperations.applyPlan(mongoIndexOperations.planIndexes(indexLayout.specifications));
+
+        sample = mongoTemplate.findOne(new Query(), RandomData.class);
+
+        deepKeysetRequest = KeysetRequest.first(PAGE.getPageSize());
+        for (var page = 0; page < DEEP_PAGE_NUMBER; ++page) {
+            deepKeysetRequest = repository.findAllByRandomLongGreaterThan(0, deepKeysetRequest).nextRequest();
+        }
+    }
+
+    private void loadData(MongoTemplate mongoTemplate) {
+        if (mongoTemplate.getCollection(COLLECTION_NAME).estimatedDocumentCount() == collectionSize) return;
+
+        mongoTemplate.dropCollection(COLLECTION_NAME);
+        new RandomDataBulkLoader(mongoClient, DATABASE_NAME, COLLECTION_NAME, BATCH_SIZE, WRITERS)
+                .load(collectionSize, new RandomDataGenerator(SEED));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public Page<RandomData> findAllByRandomBoolean() {
+        return repository.findAllByRandomBoolean(sample.isRandomBoolean(), PAGE);
+    }
+
+    @Benchmark
+    public Page<RandomData> findAllByRandomLong() {
+        return repository.findAllByRandomLong(sample.getRandomLong(), PAGE);
+    }
+
+    @Benchmark
+    public Page<RandomData> findAllByRandomLongGreaterThan() {
+        return repository.findAllByRandomLongGreaterThan(0, PAGE);
+    }
+
+    @Benchmark
+    public Page<RandomData> findAllByRandomLongGreaterThanDeepPage() {
+        return repository.findAllByRandomLongGreaterThan(0, PAGE.withPage(DEEP_PAGE_NUMBER));
+    }
+
+    @Benchmark
+    public KeysetSlice<RandomData> findAllByRandomLongGreaterThanDeepKeysetSlice() {
+        return repository.findAllByRandomLongGreaterThan(0, deepKeysetRequest);
+    }
+
+    @Benchmark
+    public Page<RandomData> findAllByRandomString() {
+        return repository.findAllByRandomString(sample.getRandomString(), PAGE);
+    }
+
+    @Benchmark
+    public List<RandomDataKey> findKeysByRandomString() {
+        return repository.findKeysByRandomString(sample.getRandomString());
+    }
+
+    @Benchmark
+    public RandomData findByRandomStringAndRandomLongAndRandomBoolean() {
+        return repository.findByRandomStringAndRandomLongAndRandomBoolean(sample.getRandomString(),
+                sample.getRandomLong(), sample.isRandomBoolean());
+    }
+
+    @Benchmark
+    public RandomData findByRandomStringAndRandomLong() {
+        return repository.findByRandomStringAndRandomLong(sample.getRandomString(), sample.getRandomLong());
+    }
+
+    @Benchmark
+    public RandomDataKey findKeyByRandomStringAndRandomLong() {
+        return repository.findKeyByRandomStringAndRandomLong(sample.getRandomString(), sample.getRandomLong());
+    }
+}
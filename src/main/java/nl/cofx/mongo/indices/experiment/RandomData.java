@@ -2,23 +2,33 @@ package nl.cofx.mongo.indices.experiment;
 
 import lombok.Builder;
 import lombok.Data;
+import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
  * See {@link RandomDataIndexCreator} for additional ways to handle indexes for this entity.
+ * The indexes ending with {@code _id} support the keyset pagination of {@link RandomDataKeysetRepository}.
+ * They also serve the queries on {@code randomString} or {@code randomLong} alone,
+ * so these fields have no single-field indexes, which would only be redundant prefixes.
  */
 @Builder
-@CompoundIndex(def = "{ randomString: 1, randomLong: 1 }", name = "idx0")
+@CompoundIndexes({
+        @CompoundIndex(def = "{ randomString: 1, randomLong: 1 }", name = "idx0"),
+        @CompoundIndex(def = "{ randomBoolean: 1, _id: 1 }", name = "randomBoolean_keyset"),
+        @CompoundIndex(def = "{ randomLong: 1, _id: 1 }", name = "randomLong_keyset"),
+        @CompoundIndex(def = "{ randomString: 1, _id: 1 }", name = "randomString_keyset")
+})
 @Data
 @Document
 public class RandomData {
 
-    @Indexed
+    @Id
+    private String id;
+
     private String randomString;
 
-    @Indexed
     private long randomLong;
 
     private boolean randomBoolean;
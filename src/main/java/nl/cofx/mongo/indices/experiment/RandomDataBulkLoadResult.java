@@ -0,0 +1,17 @@
+package nl.cofx.mongo.indices.experiment;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class RandomDataBulkLoadResult {
+
+    long documents;
+    Duration duration;
+
+    public double getDocumentsPerSecond() {
+        var seconds = duration.toNanos() / 1_000_000_000.0;
+        return seconds <= 0 ? 0 : documents / seconds;
+    }
+}
@@ -0,0 +1,114 @@
+package nl.cofx.mongo.indices.experiment;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.codecs.configuration.CodecRegistries;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Inserts large numbers of {@link RandomData} documents as fast as the driver allows.
+ * <p>
+ * Documents are encoded with {@link RandomDataCodec} instead of the mapping of Spring Data,
+ * and are inserted with unordered {@code insertMany} commands by several writers in parallel.
+ */
+@Slf4j
+public class RandomDataBulkLoader {
+
+    private static final InsertManyOptions UNORDERED = new InsertManyOptions().ordered(false);
+
+    private final MongoCollection<RandomData> collection;
+    private final int batchSize;
+    private final int writers;
+
+    public RandomDataBulkLoader(MongoClient mongoClient, String databaseName, String collectionName, int batchSize,
+            int writers) {
+        var codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(new RandomDataCodec()),
+                MongoClientSettings.getDefaultCodecRegistry());
+        this.collection = mongoClient.getDatabase(databaseName)
+                .getCollection(collectionName, RandomData.class)
+                .withCodecRegistry(codecRegistry);
+        this.batchSize = batchSize;
+        this.writers = writers;
+    }
+
+    /**
+     * Insert the given number of documents.
+     *
+     * @param generator creates the documents to insert and is called by all writers concurrently
+     */
+    public RandomDataBulkLoadResult load(long count, Supplier<RandomData> generator) {
+        return load(count, writer -> generator);
+    }
+
+    /**
+     * Insert the given number of documents, giving each writer its own split of the given generator.
+     * Loading the same number of documents with the same seed, batch size, and number of writers
+     * results in the same documents, regardless of the order in which they're inserted.
+     */
+    public RandomDataBulkLoadResult load(long count, RandomDataGenerator generator) {
+        var generators = new ArrayList<RandomDataGenerator>(writers);
+        for (var writer = 0; writer < writers; ++writer) {
+            generators.add(generator.split());
+        }
+
+        return load(count, generators::get);
+    }
+
+    private static ThreadFactory writerThreadFactory() {
+        var writerCount = new AtomicInteger();
+        return runnable -> {
+            var thread = new Thread(runnable, "random-data-writer-" + writerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private RandomDataBulkLoadResult load(long count, IntFunction<Supplier<RandomData>> generatorForWriter) {
+        log.info("Loading {} documents in batches of {} with {} writers", count, batchSize, writers);
+
+        var start = System.nanoTime();
+        var executor = Executors.newFixedThreadPool(writers, writerThreadFactory());
+        try {
+            var futures = new ArrayList<CompletableFuture<Void>>();
+            for (var writer = 0; writer < writers; ++writer) {
+                var share = count / writers + (writer < count % writers ? 1 : 0);
+                var generator = generatorForWriter.apply(writer);
+                futures.add(CompletableFuture.runAsync(() -> insert(share, generator), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        var result = new RandomDataBulkLoadResult(count, Duration.ofNanos(System.nanoTime() - start));
+        log.info("Loaded {} documents in {} ({} documents per second)", count, result.getDuration(),
+                Math.round(result.getDocumentsPerSecond()));
+
+        return result;
+    }
+
+    private void insert(long count, Supplier<RandomData> generator) {
+        var remaining = count;
+        while (remaining > 0) {
+            var size = (int) Math.min(batchSize, remaining);
+            var batch = new ArrayList<RandomData>(size);
+            for (var i = 0; i < size; ++i) {
+                batch.add(generator.get());
+            }
+            collection.insertMany(batch, UNORDERED);
+            remaining -= size;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package nl.cofx.mongo.indices.experiment;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+/**
+ * Encodes {@link RandomData} directly to BSON, without going through the mapping of Spring Data.
+ * Documents written with this codec have the same fields as documents written by {@link RandomDataRepository},
+ * except for the type hint {@code _class}, which isn't needed to read them.
+ * Like Spring Data, identifiers that are valid object IDs are stored as such.
+ * Documents without identifier get an object ID generated by the driver before they are sent to the server.
+ */
+public class RandomDataCodec implements Codec<RandomData> {
+
+    @Override
+    public void encode(BsonWriter writer, RandomData value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (value.getId() != null) {
+            if (ObjectId.isValid(value.getId())) {
+                writer.writeObjectId("_id", new ObjectId(value.getId()));
+            } else {
+                writer.writeString("_id", value.getId());
+            }
+        }
+        if (value.getRandomString() == null) {
+            writer.writeNull("randomString");
+        } else {
+            writer.writeString("randomString", value.getRandomString());
+        }
+        writer.writeInt64("randomLong", value.getRandomLong());
+        writer.writeBoolean("randomBoolean", value.isRandomBoolean());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public RandomData decode(BsonReader reader, DecoderContext decoderContext) {
+        var builder = RandomData.builder();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            var name = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                continue;
+            }
+
+            switch (name) {
+                case "_id" -> builder.id(reader.getCurrentBsonType() == BsonType.OBJECT_ID
+                        ? reader.readObjectId().toHexString()
+                        : reader.readString());
+                case "randomString" -> builder.randomString(reader.readString());
+                case "randomLong" -> builder.randomLong(reader.readInt64());
+                case "randomBoolean" -> builder.randomBoolean(reader.readBoolean());
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return builder.build();
+    }
+
+    @Override
+    public Class<RandomData> getEncoderClass() {
+        return RandomData.class;
+    }
+}
@@ -0,0 +1,37 @@
+package nl.cofx.mongo.indices.experiment;
+
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Options for the cursors used by {@link RandomDataStreams}.
+ */
+@Builder(toBuilder = true)
+@Value
+public class RandomDataCursorOptions {
+
+    public static final RandomDataCursorOptions DEFAULT = RandomDataCursorOptions.builder().build();
+
+    /**
+     * Number of documents fetched from the server per round trip.
+     * Larger batches mean fewer round trips, at the cost of more documents held in memory at once.
+     */
+    @Builder.Default
+    int batchSize = 1_000;
+
+    /**
+     * Whether the server should keep the cursor open while it's idle for longer than the cursor timeout,
+     * which happens when processing a batch takes longer than 10 minutes.
+     * Such cursors are only closed when the stream is closed or the subscription is cancelled.
+     */
+    @Builder.Default
+    boolean noCursorTimeout = false;
+
+    Query applyTo(Query query) {
+        query.cursorBatchSize(batchSize);
+        if (noCursorTimeout) query.noCursorTimeout();
+
+        return query;
+    }
+}
@@ -0,0 +1,40 @@
+package nl.cofx.mongo.indices.experiment;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Describes the values generated by {@link RandomDataGenerator}, which determines the selectivity of queries on them.
+ */
+@Builder(toBuilder = true)
+@Value
+public class RandomDataDistribution {
+
+    public static final RandomDataDistribution UNIFORM = RandomDataDistribution.builder().build();
+
+    /**
+     * Number of distinct values of {@code randomString}, or {@code 0} to make (practically) every value unique.
+     */
+    @Builder.Default
+    long stringCardinality = 0;
+
+    /**
+     * Number of distinct values of {@code randomLong}, or {@code 0} to draw values from the full range of longs.
+     */
+    @Builder.Default
+    long longCardinality = 0;
+
+    /**
+     * Skew of {@code randomLong} values, where {@code 0} means that every value is equally likely
+     * and higher values make a few values increasingly common.
+     * Only applies if {@link #longCardinality} is set.
+     */
+    @Builder.Default
+    double longSkew = 0;
+
+    /**
+     * Fraction of documents for which {@code randomBoolean} is {@code true}.
+     */
+    @Builder.Default
+    double booleanTrueRatio = 0.5;
+}
@@ -0,0 +1,110 @@
+package nl.cofx.mongo.indices.experiment;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Generates {@link RandomData} from a seed, so that generated data sets can be reproduced.
+ * <p>
+ * Instances aren't thread-safe.
+ * Use {@link #split()} to give each thread its own generator, which is as deterministic as the original.
+ * Strings have the format of random UUIDs, but are generated without drawing from {@link java.security.SecureRandom}.
+ */
+public class RandomDataGenerator implements Supplier<RandomData> {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final SplittableRandom random;
+    private final RandomDataDistribution distribution;
+
+    public RandomDataGenerator(long seed) {
+        this(seed, RandomDataDistribution.UNIFORM);
+    }
+
+    public RandomDataGenerator(long seed, RandomDataDistribution distribution) {
+        this(new SplittableRandom(seed), distribution);
+    }
+
+    private RandomDataGenerator(SplittableRandom random, RandomDataDistribution distribution) {
+        this.random = random;
+        this.distribution = distribution;
+    }
+
+    /**
+     * @return a new generator with the same distribution, whose values are independent of those of this generator
+     */
+    public RandomDataGenerator split() {
+        return new RandomDataGenerator(random.split(), distribution);
+    }
+
+    @Override
+    public RandomData get() {
+        return RandomData.builder()
+                .randomString(nextString())
+                .randomLong(nextLong())
+                .randomBoolean(nextBoolean())
+                .build();
+    }
+
+    public String nextString() {
+        var cardinality = distribution.getStringCardinality();
+        if (cardinality <= 0) return uuid(random.nextLong(), random.nextLong());
+
+        var value = random.nextLong(cardinality);
+        return uuid(mix(value), mix(~value));
+    }
+
+    public long nextLong() {
+        var cardinality = distribution.getLongCardinality();
+        if (cardinality <= 0) return random.nextLong();
+
+        var skew = distribution.getLongSkew();
+        var rank = skew <= 0
+                ? random.nextLong(cardinality)
+                : Math.min(cardinality - 1, (long) (cardinality * Math.pow(random.nextDouble(), 1 + skew)));
+
+        return mix(rank);
+    }
+
+    public boolean nextBoolean() {
+        return random.nextDouble() < distribution.getBooleanTrueRatio();
+    }
+
+    /**
+     * Spread consecutive values over the full range of longs.
+     * This is the finalizer of SplitMix64, which maps distinct values to distinct values.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Format the given bits as a version 4 UUID, such as {@code d08d0f44-fe00-423b-bbf4-f0b6bb39b537}.
+     */
+    static String uuid(long mostSignificantBits, long leastSignificantBits) {
+        mostSignificantBits = (mostSignificantBits & ~0xf000L) | 0x4000L;
+        leastSignificantBits = (leastSignificantBits & 0x3fffffffffffffffL) | 0x8000000000000000L;
+
+        var chars = new char[36];
+        writeHex(chars, 0, mostSignificantBits >>> 32, 8);
+        chars[8] = '-';
+        writeHex(chars, 9, mostSignificantBits >>> 16, 4);
+        chars[13] = '-';
+        writeHex(chars, 14, mostSignificantBits, 4);
+        chars[18] = '-';
+        writeHex(chars, 19, leastSignificantBits >>> 48, 4);
+        chars[23] = '-';
+        writeHex(chars, 24, leastSignificantBits, 12);
+
+        return new String(chars);
+    }
+
+    private static void writeHex(char[] chars, int offset, long value, int digits) {
+        for (var i = offset + digits - 1; i >= offset; --i) {
+            chars[i] = HEX_DIGITS[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+    }
+}
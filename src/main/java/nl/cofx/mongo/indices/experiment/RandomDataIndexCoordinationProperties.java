@@ -0,0 +1,33 @@
+package nl.cofx.mongo.indices.experiment;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Configuration of the coordination between instances of the application that create indexes with
+ * {@link RandomDataIndexCreator}, which is turned off unless {@code enabled} is set.
+ */
+@ConfigurationProperties(prefix = "random-data.index-coordination")
+@Data
+public class RandomDataIndexCoordinationProperties {
+
+    private boolean enabled;
+
+    /**
+     * Identifies this instance in the lock document while it builds indexes.
+     */
+    private String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * How long other instances wait before taking over from an instance that stopped while building indexes.
+     */
+    private Duration leaseDuration = Duration.ofSeconds(30);
+
+    /**
+     * How often the lock document is read while waiting, if changes to it can't be watched.
+     */
+    private Duration pollInterval = Duration.ofSeconds(5);
+}
@@ -2,12 +2,28 @@ package nl.cofx.mongo.indices.experiment;
 
 import com.mongodb.client.MongoClient;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexBuildCoordinationResult;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexBuildCoordinator;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexBuildManager;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexBuildState;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexBuildStatus;
 import nl.cofx.mongo.indices.experiment.operations.MongoIndexOperations;
 import nl.cofx.mongo.indices.experiment.operations.MongoIndexSpecification;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
+/**
+ * Builds the indexes of the collection of {@link RandomData} at startup.
+ * <p>
+ * When several instances of the application start at the same time, they would all build the same indexes.
+ * With coordination enabled, only the instance holding the lease builds them, and the others wait for it to finish.
+ */
 @Component
+@EnableConfigurationProperties(RandomDataIndexCoordinationProperties.class)
 @Slf4j
 public class RandomDataIndexCreator {
 
@@ -22,41 +38,71 @@ public class RandomDataIndexCreator {
             .build();
 
     private final MongoIndexOperations mongoIndexOperations;
+    private final MongoIndexBuildManager mongoIndexBuildManager;
+    private final MongoIndexBuildCoordinator mongoIndexBuildCoordinator;
 
-    public RandomDataIndexCreator(MongoClient mongoClient) {
+    public RandomDataIndexCreator(MongoClient mongoClient, RandomDataIndexCoordinationProperties coordinationProperties) {
         mongoIndexOperations = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient);
+        mongoIndexBuildManager = new MongoIndexBuildManager(DATABASE_NAME, COLLECTION_NAME, mongoClient);
+        mongoIndexBuildCoordinator = coordinationProperties.isEnabled()
+                ? new MongoIndexBuildCoordinator(DATABASE_NAME, COLLECTION_NAME, mongoClient, mongoIndexBuildManager,
+                        coordinationProperties.getInstanceId(), coordinationProperties.getLeaseDuration(),
+                        coordinationProperties.getPollInterval())
+                : null;
     }
 
     @PostConstruct
     public void startIndexCreation() {
-        new Thread(() -> {
-            createIndexes();
+        var specifications = List.of(MONGO_INDEX_SPECIFICATION_1, MONGO_INDEX_SPECIFICATION_2);
+        if (mongoIndexBuildCoordinator != null) {
+            mongoIndexBuildCoordinator.ensureIndexes(specifications).whenComplete((result, e) -> {
+                if (e != null) {
+                    log.error("Coordinated index build failed", e);
+                    return;
+                }
+
+                log.info("Coordinated index build completed: {}", result);
+                if (result.getOutcome() != MongoIndexBuildCoordinationResult.Outcome.BUILT
+                        || result.getStatus().getState() != MongoIndexBuildState.DONE) return;
+
+                findIndexes();
+                deleteIndexes();
+            });
+            return;
+        }
+
+        var build = mongoIndexBuildManager.submit(specifications);
+        log.info("Submitted index build: {}", build);
+        mongoIndexBuildManager.getCompletion(build.getId()).thenAccept(status -> {
+            log.info("Index build completed: {}", status);
+            if (status.getState() != MongoIndexBuildState.DONE) return;
+
             findIndexes();
             deleteIndexes();
-        }).start();
+        });
+    }
+
+    @PreDestroy
+    public void stopIndexCreation() {
+        if (mongoIndexBuildCoordinator != null) mongoIndexBuildCoordinator.close();
+        mongoIndexBuildManager.close();
+    }
+
+    public List<MongoIndexBuildStatus> getIndexBuilds() {
+        return mongoIndexBuildManager.getStatuses();
     }
 
     private void findIndexes() {
         log.info("Found index: {}", mongoIndexOperations.findIndex(MONGO_INDEX_SPECIFICATION_1));
         log.info("Found index: {}", mongoIndexOperations.findIndex(MONGO_INDEX_SPECIFICATION_2));
         log.info("Found index: {}", mongoIndexOperations.findIndex(MongoIndexSpecification.builder()
-                .name("randomString")
+                .name("randomString_keyset")
                 .build()));
         log.info("Found index: {}", mongoIndexOperations.findIndex(MongoIndexSpecification.builder()
                 .unique(true)
                 .build()));
     }
 
-    private void createIndexes() {
-        log.info("Creating first index");
-        mongoIndexOperations.createIndex(MONGO_INDEX_SPECIFICATION_1);
-        log.info("Created first index");
-
-        log.info("Creating second index");
-        mongoIndexOperations.createIndex(MONGO_INDEX_SPECIFICATION_2);
-        log.info("Created second index");
-    }
-
     private void deleteIndexes() {
         log.info("Deleting first index");
         mongoIndexOperations.deleteIndex(MONGO_INDEX_SPECIFICATION_1);
@@ -0,0 +1,14 @@
+package nl.cofx.mongo.indices.experiment;
+
+import lombok.Value;
+
+/**
+ * The fields of {@link RandomData} that are indexed by {@code idx0}.
+ * Queries that only return these fields can be answered from the index, without fetching documents.
+ */
+@Value
+public class RandomDataKey {
+
+    String randomString;
+    long randomLong;
+}
@@ -0,0 +1,22 @@
+package nl.cofx.mongo.indices.experiment;
+
+import nl.cofx.mongo.indices.experiment.keyset.KeysetRequest;
+import nl.cofx.mongo.indices.experiment.keyset.KeysetSlice;
+
+/**
+ * Keyset-paginated variants of the page queries of {@link RandomDataRepository}.
+ * <p>
+ * Instead of skipping the results of previous pages and counting all results,
+ * each slice continues after the last result of the previous one with a range predicate on an index,
+ * so every slice costs as much as the first.
+ */
+public interface RandomDataKeysetRepository {
+
+    KeysetSlice<RandomData> findAllByRandomBoolean(boolean value, KeysetRequest request);
+
+    KeysetSlice<RandomData> findAllByRandomLong(long value, KeysetRequest request);
+
+    KeysetSlice<RandomData> findAllByRandomLongGreaterThan(long value, KeysetRequest request);
+
+    KeysetSlice<RandomData> findAllByRandomString(String value, KeysetRequest request);
+}
@@ -0,0 +1,88 @@
+package nl.cofx.mongo.indices.experiment;
+
+import lombok.RequiredArgsConstructor;
+import nl.cofx.mongo.indices.experiment.keyset.KeysetRequest;
+import nl.cofx.mongo.indices.experiment.keyset.KeysetSlice;
+import nl.cofx.mongo.indices.experiment.keyset.KeysetToken;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.function.Function;
+
+@RequiredArgsConstructor
+public class RandomDataKeysetRepositoryImpl implements RandomDataKeysetRepository {
+
+    private static final String ID = "id";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public KeysetSlice<RandomData> findAllByRandomBoolean(boolean value, KeysetRequest request) {
+        return find(equalTo("randomBoolean", value, request), request, RandomData::isRandomBoolean);
+    }
+
+    @Override
+    public KeysetSlice<RandomData> findAllByRandomLong(long value, KeysetRequest request) {
+        return find(equalTo("randomLong", value, request), request, RandomData::getRandomLong);
+    }
+
+    @Override
+    public KeysetSlice<RandomData> findAllByRandomLongGreaterThan(long value, KeysetRequest request) {
+        return find(greaterThan("randomLong", value, request), request, RandomData::getRandomLong);
+    }
+
+    @Override
+    public KeysetSlice<RandomData> findAllByRandomString(String value, KeysetRequest request) {
+        return find(equalTo("randomString", value, request), request, RandomData::getRandomString);
+    }
+
+    /**
+     * Results with the same value for the given field are ordered by identifier,
+     * so the next slice starts after the identifier of the last result.
+     */
+    static Query equalTo(String field, Object value, KeysetRequest request) {
+        var criteria = Criteria.where(field).is(value);
+        if (!request.isFirst()) {
+            criteria = criteria.and(ID).gt(KeysetToken.decode(request.getToken()).getId());
+        }
+
+        return Query.query(criteria)
+                .with(Sort.by(ID))
+                .limit(request.getSize() + 1);
+    }
+
+    /**
+     * Results are ordered by the value of the given field and then by identifier,
+     * so the next slice starts after the combination of both of the last result.
+     */
+    static Query greaterThan(String field, Object value, KeysetRequest request) {
+        Criteria criteria;
+        if (request.isFirst()) {
+            criteria = Criteria.where(field).gt(value);
+        } else {
+            var token = KeysetToken.decode(request.getToken());
+            criteria = Criteria.where(field).gte(token.getValue())
+                    .orOperator(Criteria.where(field).gt(token.getValue()), Criteria.where(ID).gt(token.getId()));
+        }
+
+        return Query.query(criteria)
+                .with(Sort.by(field, ID))
+                .limit(request.getSize() + 1);
+    }
+
+    /**
+     * Fetch one result more than requested, to find out whether there is a next slice without counting.
+     */
+    private KeysetSlice<RandomData> find(Query query, KeysetRequest request, Function<RandomData, Object> keyExtractor) {
+        var results = mongoTemplate.find(query, RandomData.class);
+        if (results.size() <= request.getSize()) return new KeysetSlice<>(results, null);
+
+        var content = results.subList(0, request.getSize());
+        var last = content.get(content.size() - 1);
+        var nextToken = new KeysetToken(keyExtractor.apply(last), last.getId()).encode();
+
+        return new KeysetSlice<>(content, nextToken);
+    }
+}
@@ -0,0 +1,261 @@
+package nl.cofx.mongo.indices.experiment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in front of the point lookups of {@link RandomDataRepository}.
+ * <p>
+ * Entries are evicted when the cache is full or when their time to live has passed.
+ * A change stream on the collection removes entries for documents that are inserted, updated, replaced, or deleted,
+ * including by other instances of the application.
+ * Results are only cached while the change stream is open,
+ * and results of lookups that start before a change and finish after it aren't cached,
+ * so that stale documents can't reenter the cache.
+ * The keys of cached documents are also kept by document ID,
+ * so that changes without the full document, such as deletes, only remove the entries of that document.
+ * If the change stream fails, the whole cache is cleared, because changes may have been missed.
+ * Change streams require a replica set, so the cache turns itself off on a standalone server.
+ * <p>
+ * Cached documents are shared between callers and must not be modified.
+ * Hits, misses, and evictions are recorded as metrics of the cache {@value #CACHE_NAME}.
+ */
+@Slf4j
+public class RandomDataLookupCache implements AutoCloseable {
+
+    static final String CACHE_NAME = "randomDataLookups";
+    private static final int CHANGE_STREAMS_NOT_SUPPORTED = 40573;
+    private static final Duration MAX_AWAIT_TIME = Duration.ofSeconds(1);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+    private static final List<String> INVALIDATING_OPERATIONS = List.of("drop", "dropDatabase", "rename", "invalidate");
+
+    private final RandomDataRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final Cache<Key, Optional<RandomData>> cache;
+    private final ConcurrentHashMap<String, Set<Key>> keysById = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile boolean enabled;
+    private volatile boolean running;
+    private volatile boolean watching;
+    private Thread watcher;
+
+    public RandomDataLookupCache(RandomDataRepository repository, MongoTemplate mongoTemplate,
+            RandomDataLookupCacheProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTimeToLive())
+                .removalListener(this::removeKeyOfId)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public synchronized void start() {
+        if (!enabled || running) return;
+
+        running = true;
+        watcher = new Thread(this::watch, "random-data-lookup-cache");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    boolean isWatching() {
+        return watching;
+    }
+
+    public RandomData findByRandomStringAndRandomLong(String randomString, long randomLong) {
+        return find(new Key(randomString, randomLong, null),
+                () -> repository.findByRandomStringAndRandomLong(randomString, randomLong));
+    }
+
+    public RandomData findByRandomStringAndRandomLongAndRandomBoolean(String randomString, long randomLong,
+            boolean randomBoolean) {
+        return find(new Key(randomString, randomLong, randomBoolean),
+                () -> repository.findByRandomStringAndRandomLongAndRandomBoolean(randomString, randomLong, randomBoolean));
+    }
+
+    private RandomData find(Key key, Supplier<RandomData> lookup) {
+        if (!enabled) return lookup.get();
+
+        var cached = cache.getIfPresent(key);
+        if (cached != null) return cached.orElse(null);
+
+        var lookupGeneration = generation.get();
+        var result = lookup.get();
+        if (!watching) return result;
+
+        cache.put(key, Optional.ofNullable(result));
+        if (result != null) addKeyOfId(result.getId(), key);
+        if (!watching || generation.get() != lookupGeneration) {
+            // A change was processed during the lookup, possibly before the result was put, so it may be stale.
+            cache.invalidate(key);
+        }
+
+        return result;
+    }
+
+    private void addKeyOfId(String id, Key key) {
+        keysById.compute(id, (ignored, keys) -> {
+            var updated = keys == null ? ConcurrentHashMap.<Key>newKeySet() : keys;
+            updated.add(key);
+            return updated;
+        });
+    }
+
+    /**
+     * Removal is notified asynchronously, so the key is kept if it has been cached again for the same document since.
+     */
+    private void removeKeyOfId(Key key, Optional<RandomData> removed, RemovalCause cause) {
+        if (key == null || removed == null || removed.isEmpty()) return;
+
+        var id = removed.get().getId();
+        keysById.computeIfPresent(id, (ignored, keys) -> {
+            var current = cache.asMap().get(key);
+            if (current == null || current.map(randomData -> !id.equals(randomData.getId())).orElse(true)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private void watch() {
+        var collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(RandomData.class));
+        while (running) {
+            watching = false;
+            try (var cursor = collection.watch()
+                    .fullDocument(FullDocument.UPDATE_LOOKUP)
+                    .maxAwaitTime(MAX_AWAIT_TIME.toMillis(), TimeUnit.MILLISECONDS)
+                    .cursor()) {
+                log.info("Watching changes to invalidate cached lookups");
+                invalidateAll();
+                watching = true;
+                while (running) {
+                    var change = cursor.tryNext();
+                    if (change != null && !invalidate(change)) break;
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAMS_NOT_SUPPORTED) {
+                    log.warn("Disabling lookup cache, because changes can't be watched: {}", e.getErrorMessage());
+                    disable();
+                    return;
+                }
+                handleFailure(e);
+            } catch (RuntimeException e) {
+                handleFailure(e);
+            }
+        }
+    }
+
+    /**
+     * Any exception is handled, because a watcher that stops while the cache is still in use would leave it stale.
+     */
+    private void handleFailure(RuntimeException e) {
+        watching = false;
+        if (!running) return;
+
+        log.warn("Failed to watch changes, clearing lookup cache: {}", e.getMessage());
+        invalidateAll();
+        try {
+            Thread.sleep(RETRY_DELAY.toMillis());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    /**
+     * @return whether the change stream remains open after the change
+     */
+    boolean invalidate(ChangeStreamDocument<Document> change) {
+        generation.incrementAndGet();
+
+        var operation = change.getOperationTypeString();
+        if (INVALIDATING_OPERATIONS.contains(operation)) {
+            log.info("Clearing lookup cache after {}", operation);
+            invalidateAll();
+            return !"invalidate".equals(operation);
+        }
+
+        var document = change.getFullDocument();
+        // Other clients may write fields with other types, which lookups by these fields can't find anyway.
+        if (document != null
+                && document.get("randomString") instanceof String randomString
+                && document.get("randomLong") instanceof Number randomLong) {
+            cache.invalidate(new Key(randomString, randomLong.longValue(), null));
+            if (document.get("randomBoolean") instanceof Boolean randomBoolean) {
+                cache.invalidate(new Key(randomString, randomLong.longValue(), randomBoolean));
+            }
+        }
+
+        var documentKey = change.getDocumentKey();
+        if (documentKey != null && documentKey.containsKey("_id")) {
+            var keys = keysById.remove(toId(documentKey.get("_id")));
+            if (keys != null) cache.invalidateAll(keys);
+        }
+
+        return true;
+    }
+
+    private static String toId(BsonValue id) {
+        if (id.isObjectId()) return id.asObjectId().getValue().toHexString();
+        if (id.isString()) return id.asString().getValue();
+
+        return id.toString();
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        keysById.clear();
+        cache.invalidateAll();
+    }
+
+    private void disable() {
+        enabled = false;
+        running = false;
+        watching = false;
+        invalidateAll();
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        watching = false;
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher = null;
+        }
+    }
+
+    /**
+     * A lookup by {@code randomString} and {@code randomLong} only has no value for {@code randomBoolean}.
+     */
+    private record Key(String randomString, long randomLong, Boolean randomBoolean) {
+    }
+}
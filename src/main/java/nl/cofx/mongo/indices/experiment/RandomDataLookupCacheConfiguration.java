@@ -0,0 +1,24 @@
+package nl.cofx.mongo.indices.experiment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Provides a {@link RandomDataLookupCache}, which passes lookups straight to the repository unless it's enabled.
+ */
+@Configuration
+@EnableConfigurationProperties(RandomDataLookupCacheProperties.class)
+public class RandomDataLookupCacheConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public RandomDataLookupCache randomDataLookupCache(RandomDataRepository repository, MongoTemplate mongoTemplate,
+            RandomDataLookupCacheProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RandomDataLookupCache(repository, mongoTemplate, properties,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
@@ -0,0 +1,27 @@
+package nl.cofx.mongo.indices.experiment;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration of {@link RandomDataLookupCache}, which is turned off unless {@code enabled} is set.
+ */
+@ConfigurationProperties(prefix = "random-data.lookup-cache")
+@Data
+public class RandomDataLookupCacheProperties {
+
+    private boolean enabled;
+
+    /**
+     * Number of lookup results kept before the least recently used ones are evicted.
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * How long a lookup result is kept after it's cached,
+     * which bounds how stale results can get while changes can't be watched.
+     */
+    private Duration timeToLive = Duration.ofMinutes(5);
+}
@@ -0,0 +1,260 @@
+package nl.cofx.mongo.indices.experiment;
+
+import lombok.RequiredArgsConstructor;
+import nl.cofx.mongo.indices.experiment.explain.QueryPlan;
+import nl.cofx.mongo.indices.experiment.explain.QueryPlanInspector;
+import nl.cofx.mongo.indices.experiment.explain.QueryPlanRegression;
+import nl.cofx.mongo.indices.experiment.keyset.KeysetRequest;
+import nl.cofx.mongo.indices.experiment.keyset.KeysetToken;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Explains the queries of {@link RandomDataRepository} to verify that they are served by an index.
+ * <p>
+ * The queries are built from the methods of the repository, by deriving them from the name of the method
+ * or by taking them from its {@link org.springframework.data.mongodb.repository.Query} annotation,
+ * so that they can't drift from the queries that the repository executes.
+ * The queries of keyset pagination are built by {@link RandomDataKeysetRepositoryImpl} itself.
+ * The values queried for are taken from a document in the collection, so that the queries return results.
+ */
+@Component
+@RequiredArgsConstructor
+public class RandomDataQueryPlans {
+
+    private static final Pageable PAGE = Pageable.ofSize(10);
+    private static final Pattern PARAMETER_PLACEHOLDER = Pattern.compile("\\?\\d+");
+
+    private final MongoTemplate mongoTemplate;
+    private final QueryPlanInspector queryPlanInspector;
+
+    /**
+     * @return the plan of every query, by the name of the repository method that executes it
+     */
+    public Map<String, QueryPlan> explainAll() {
+        var queryPlans = new LinkedHashMap<String, QueryPlan>();
+        getQueries().forEach((name, query) -> queryPlans.put(name, queryPlanInspector.explain(query, RandomData.class)));
+
+        return queryPlans;
+    }
+
+    /**
+     * @throws QueryPlanRegression if any query scans the collection
+     *                             or examines more keys or documents per document returned than allowed
+     */
+    public void verifyAll(double maxExaminedToReturnedRatio) {
+        var regressions = new ArrayList<String>();
+        explainAll().forEach((name, queryPlan) -> {
+            try {
+                queryPlan.verify(maxExaminedToReturnedRatio);
+            } catch (QueryPlanRegression e) {
+                regressions.add(name + ": " + e.getMessage());
+            }
+        });
+
+        if (!regressions.isEmpty()) {
+            throw new QueryPlanRegression(String.join("\n", regressions));
+        }
+    }
+
+    /**
+     * @throws QueryPlanRegression if any of the queries that only return indexed fields fetches documents
+     */
+    public void verifyCovered() {
+        var regressions = new ArrayList<String>();
+        getCoveredQueries(findSample()).forEach((name, query) -> {
+            try {
+                queryPlanInspector.explain(query, RandomData.class).verifyCovered();
+            } catch (QueryPlanRegression e) {
+                regressions.add(name + ": " + e.getMessage());
+            }
+        });
+
+        if (!regressions.isEmpty()) {
+            throw new QueryPlanRegression(String.join("\n", regressions));
+        }
+    }
+
+    /**
+     * @return a document from the collection, or a document with default values if the collection is empty
+     */
+    private RandomData findSample() {
+        var sample = mongoTemplate.findOne(new Query(), RandomData.class);
+        if (sample != null) return sample;
+
+        return RandomData.builder()
+                .id(new ObjectId().toHexString())
+                .randomString("")
+                .build();
+    }
+
+    private Map<String, Query> getQueries() {
+        var sample = findSample();
+        var randomString = sample.getRandomString();
+        var randomLong = sample.getRandomLong();
+        var randomBoolean = sample.isRandomBoolean();
+        var id = sample.getId();
+
+        var queries = new LinkedHashMap<String, Query>();
+        queries.putAll(getRepositoryQueries(sample, method -> true));
+        queries.put("findAllByRandomBoolean(KeysetRequest)", RandomDataKeysetRepositoryImpl.equalTo("randomBoolean",
+                randomBoolean, keysetRequest(randomBoolean, id)));
+        queries.put("findAllByRandomLong(KeysetRequest)", RandomDataKeysetRepositoryImpl.equalTo("randomLong",
+                randomLong, keysetRequest(randomLong, id)));
+        queries.put("findAllByRandomLongGreaterThan(KeysetRequest)", RandomDataKeysetRepositoryImpl.greaterThan("randomLong",
+                randomLong - 1, keysetRequest(randomLong, id)));
+        queries.put("findAllByRandomString(KeysetRequest)", RandomDataKeysetRepositoryImpl.equalTo("randomString",
+                randomString, keysetRequest(randomString, id)));
+
+        return queries;
+    }
+
+    /**
+     * Queries that return only the fields of a projection are expected to be answered by an index alone.
+     */
+    private Map<String, Query> getCoveredQueries(RandomData sample) {
+        return getRepositoryQueries(sample, method -> {
+            var query = method.getAnnotation(org.springframework.data.mongodb.repository.Query.class);
+            return query != null && !query.fields().isEmpty();
+        });
+    }
+
+    /**
+     * @return the query of every method declared by {@link RandomDataRepository} itself that passes the given filter,
+     * by the name of the method
+     */
+    private Map<String, Query> getRepositoryQueries(RandomData sample, Predicate<Method> filter) {
+        var entity = mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(RandomData.class);
+        var accessor = entity.getPropertyAccessor(sample);
+
+        var queries = new LinkedHashMap<String, Query>();
+        Arrays.stream(RandomDataRepository.class.getDeclaredMethods())
+                .filter(method -> !method.isDefault() && !method.isSynthetic())
+                .filter(filter)
+                .sorted(Comparator.comparing(Method::getName))
+                .forEach(method -> queries.put(method.getName(), toQuery(method, entity, accessor)));
+
+        return queries;
+    }
+
+    private static Query toQuery(Method method, MongoPersistentEntity<?> entity,
+            PersistentPropertyAccessor<RandomData> accessor) {
+        var annotation = method.getAnnotation(org.springframework.data.mongodb.repository.Query.class);
+        var query = annotation != null && !annotation.value().isEmpty()
+                ? fromAnnotation(annotation, entity, accessor)
+                : fromMethodName(method.getName(), entity, accessor);
+        if (Arrays.asList(method.getParameterTypes()).contains(Pageable.class)) {
+            query.with(PAGE);
+        }
+
+        return query;
+    }
+
+    /**
+     * Parameters such as {@code ?0} are replaced by the value of the sample for the field they're compared with.
+     */
+    private static Query fromAnnotation(org.springframework.data.mongodb.repository.Query annotation,
+            MongoPersistentEntity<?> entity, PersistentPropertyAccessor<RandomData> accessor) {
+        var filter = bindParameters(Document.parse(PARAMETER_PLACEHOLDER.matcher(annotation.value()).replaceAll("\"$0\"")),
+                entity, accessor);
+        var fields = annotation.fields().isEmpty() ? new Document() : Document.parse(annotation.fields());
+        var query = new BasicQuery(filter, fields);
+        if (!annotation.sort().isEmpty()) {
+            query.setSortObject(Document.parse(annotation.sort()));
+        }
+
+        return query;
+    }
+
+    private static Document bindParameters(Document filter, MongoPersistentEntity<?> entity,
+            PersistentPropertyAccessor<RandomData> accessor) {
+        var bound = new Document();
+        filter.forEach((field, value) -> {
+            if (value instanceof String string && PARAMETER_PLACEHOLDER.matcher(string).matches()) {
+                bound.append(field, accessor.getProperty(getPropertyOfField(entity, field)));
+            } else if (value instanceof Document document) {
+                bound.append(field, bindParameters(document, entity, accessor));
+            } else {
+                bound.append(field, value);
+            }
+        });
+
+        return bound;
+    }
+
+    private static MongoPersistentProperty getPropertyOfField(MongoPersistentEntity<?> entity, String field) {
+        for (var property : entity) {
+            if (property.getFieldName().equals(field)) return property;
+        }
+
+        throw new IllegalArgumentException("No property stored in field " + field);
+    }
+
+    /**
+     * Derive the query in the same way as the repository does, but with the values of the sample.
+     * Ranges are widened by one, so that they include the sample.
+     */
+    private static Query fromMethodName(String methodName, MongoPersistentEntity<?> entity,
+            PersistentPropertyAccessor<RandomData> accessor) {
+        var tree = new PartTree(methodName, RandomData.class);
+        var orCriteria = new ArrayList<Criteria>();
+        for (var orPart : tree) {
+            Criteria criteria = null;
+            for (var part : orPart) {
+                var property = part.getProperty().toDotPath();
+                var value = accessor.getProperty(entity.getRequiredPersistentProperty(property));
+                criteria = criteria == null ? Criteria.where(property) : criteria.and(property);
+                criteria = switch (part.getType()) {
+                    case SIMPLE_PROPERTY -> criteria.is(value);
+                    case NEGATING_SIMPLE_PROPERTY -> criteria.ne(value);
+                    case GREATER_THAN -> criteria.gt(value instanceof Long number ? number - 1 : value);
+                    case GREATER_THAN_EQUAL -> criteria.gte(value);
+                    case LESS_THAN -> criteria.lt(value instanceof Long number ? number + 1 : value);
+                    case LESS_THAN_EQUAL -> criteria.lte(value);
+                    case TRUE -> criteria.is(true);
+                    case FALSE -> criteria.is(false);
+                    default -> throw new IllegalArgumentException("Unsupported condition " + part + " of " + methodName);
+                };
+            }
+            orCriteria.add(criteria);
+        }
+
+        var query = orCriteria.size() == 1
+                ? Query.query(orCriteria.get(0))
+                : Query.query(new Criteria().orOperator(orCriteria));
+        if (tree.getSort().isSorted()) {
+            query.with(tree.getSort());
+        }
+        if (tree.isLimiting()) {
+            query.limit(tree.getMaxResults());
+        }
+
+        return query;
+    }
+
+    /**
+     * @return a request for the slice after the given value and identifier, so that the range predicate is explained
+     */
+    private static KeysetRequest keysetRequest(Object value, String id) {
+        return KeysetRequest.after(new KeysetToken(value, id).encode(), PAGE.getPageSize());
+    }
+}
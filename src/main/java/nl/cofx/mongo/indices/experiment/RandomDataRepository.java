@@ -3,8 +3,17 @@ package nl.cofx.mongo.indices.experiment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
-public interface RandomDataRepository extends MongoRepository<RandomData, String> {
+import java.util.List;
+
+public interface RandomDataRepository extends MongoRepository<RandomData, String>, RandomDataKeysetRepository {
+
+    /**
+     * Projection that only includes the fields of {@link RandomDataKey}.
+     * The identifier is excluded explicitly, because it's returned by default and isn't part of the index.
+     */
+    String KEY_FIELDS = "{ _id: 0, randomString: 1, randomLong: 1 }";
 
     Page<RandomData> findAllByRandomBoolean(boolean value, Pageable page);
 
@@ -17,4 +26,16 @@ public interface RandomDataRepository extends MongoRepository<RandomData, String
     RandomData findByRandomStringAndRandomLongAndRandomBoolean(String randomString, long randomLong, boolean randomBoolean);
 
     RandomData findByRandomStringAndRandomLong(String randomString, long randomLong);
+
+    /**
+     * Covered by {@code idx0}, because only indexed fields are returned.
+     */
+    @Query(value = "{ randomString: ?0, randomLong: ?1 }", fields = KEY_FIELDS)
+    RandomDataKey findKeyByRandomStringAndRandomLong(String randomString, long randomLong);
+
+    /**
+     * Covered by {@code idx0}, because only indexed fields are returned.
+     */
+    @Query(value = "{ randomString: ?0 }", fields = KEY_FIELDS)
+    List<RandomDataKey> findKeysByRandomString(String randomString);
 }
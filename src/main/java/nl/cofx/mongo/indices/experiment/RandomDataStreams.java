@@ -0,0 +1,46 @@
+package nl.cofx.mongo.indices.experiment;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.stream.Stream;
+
+/**
+ * Walks large numbers of {@link RandomData} documents without loading them all into memory.
+ * <p>
+ * Documents are read from a cursor one batch at a time, so memory use depends on the batch size only.
+ * Streams hold a cursor open on the server and must be closed, preferably with try-with-resources.
+ * Fluxes only fetch the next batch when subscribers request more documents, and close their cursor when cancelled.
+ */
+@Component
+@RequiredArgsConstructor
+public class RandomDataStreams {
+
+    private final MongoTemplate mongoTemplate;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public Stream<RandomData> streamAll(RandomDataCursorOptions options) {
+        return mongoTemplate.stream(options.applyTo(new Query()), RandomData.class);
+    }
+
+    public Stream<RandomData> streamAllByRandomLongGreaterThan(long value, RandomDataCursorOptions options) {
+        return mongoTemplate.stream(options.applyTo(randomLongGreaterThan(value)), RandomData.class);
+    }
+
+    public Flux<RandomData> findAll(RandomDataCursorOptions options) {
+        return reactiveMongoTemplate.find(options.applyTo(new Query()), RandomData.class);
+    }
+
+    public Flux<RandomData> findAllByRandomLongGreaterThan(long value, RandomDataCursorOptions options) {
+        return reactiveMongoTemplate.find(options.applyTo(randomLongGreaterThan(value)), RandomData.class);
+    }
+
+    private static Query randomLongGreaterThan(long value) {
+        return Query.query(Criteria.where("randomLong").gt(value));
+    }
+}
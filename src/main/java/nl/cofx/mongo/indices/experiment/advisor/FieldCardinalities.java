@@ -0,0 +1,86 @@
+package nl.cofx.mongo.indices.experiment.advisor;
+
+import com.mongodb.client.MongoCollection;
+import lombok.Value;
+import org.bson.Document;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates of how many documents match a single value of a field, based on a random sample of the collection.
+ */
+@Value
+public class FieldCardinalities {
+
+    /**
+     * Fraction of documents that a range predicate is assumed to match, because its bounds are unknown in advance.
+     * This is the traditional guess of query optimizers for an open range.
+     */
+    public static final double RANGE_SELECTIVITY = 1.0 / 3;
+
+    long documentCount;
+
+    /**
+     * Per field, the expected fraction of documents that match an equality predicate on that field.
+     */
+    Map<String, Double> equalitySelectivities;
+
+    /**
+     * Draw a sample of the given size with {@code $sample} and determine the selectivity of each field.
+     * <p>
+     * The selectivity of a field is the probability that two sampled documents have the same value,
+     * which accounts for skewed values, such as a boolean that's mostly {@code true}.
+     * If every sampled value is different, the field is assumed to be unique.
+     */
+    public static FieldCardinalities sample(MongoCollection<Document> collection, Collection<String> fields,
+            int sampleSize) {
+        var documentCount = collection.estimatedDocumentCount();
+        var projection = new Document();
+        fields.forEach(field -> projection.append(field, 1));
+        var pipeline = List.of(new Document("$sample", new Document("size", sampleSize)),
+                new Document("$project", projection));
+
+        var valueCounts = new HashMap<String, Map<Object, Integer>>();
+        var sampled = 0;
+        for (var document : collection.aggregate(pipeline)) {
+            ++sampled;
+            for (var field : fields) {
+                var value = document.getEmbedded(Arrays.asList(field.split("\\.")), Object.class);
+                valueCounts.computeIfAbsent(field, ignored -> new HashMap<>()).merge(value, 1, Integer::sum);
+            }
+        }
+
+        var selectivities = new HashMap<String, Double>();
+        for (var field : fields) {
+            var counts = valueCounts.getOrDefault(field, Map.of());
+            selectivities.put(field, getSelectivity(counts, sampled, documentCount));
+        }
+
+        return new FieldCardinalities(documentCount, selectivities);
+    }
+
+    private static double getSelectivity(Map<Object, Integer> counts, int sampled, long documentCount) {
+        if (sampled == 0) return 1;
+        if (counts.size() == sampled) return 1.0 / Math.max(documentCount, 1);
+
+        var selectivity = 0.0;
+        for (var count : counts.values()) {
+            var fraction = (double) count / sampled;
+            selectivity += fraction * fraction;
+        }
+
+        return selectivity;
+    }
+
+    /**
+     * @return the expected fraction of documents matching a single value of the given field,
+     * which is one for fields that weren't sampled
+     */
+    public double getEqualitySelectivity(String field) {
+        return equalitySelectivities.getOrDefault(field, 1.0);
+    }
+}
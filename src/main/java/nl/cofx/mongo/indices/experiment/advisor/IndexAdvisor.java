@@ -0,0 +1,211 @@
+package nl.cofx.mongo.indices.experiment.advisor;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexKeyPattern;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexSpecification;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.repository.core.support.AbstractRepositoryMetadata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Proposes a minimal set of compound indexes for the queries of a repository and the queries found by the profiler.
+ * <p>
+ * For each query, the keys of the index follow the equality-sort-range rule:
+ * first the fields compared with a single value, ordered from most to least selective,
+ * then the fields to sort on, and finally the fields with a range predicate.
+ * Indexes whose keys are a prefix of the keys of another proposed index are left out,
+ * because the longer index serves their queries just as well.
+ * Each query is assigned to the index that examines the fewest keys for it,
+ * preferring indexes that return results in the order of its sort, and then the index proposed for the query itself.
+ * Indexes to which no query is assigned are left out as well.
+ * <p>
+ * Each candidate is scored by the number of index keys that its queries are expected to examine,
+ * based on the selectivity of fields in a sample of the collection.
+ */
+@Slf4j
+public class IndexAdvisor {
+
+    private static final int DEFAULT_SAMPLE_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final QueryShapeExtractor queryShapeExtractor;
+
+    public IndexAdvisor(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        this.queryShapeExtractor = new QueryShapeExtractor(mongoTemplate.getConverter().getMappingContext());
+    }
+
+    /**
+     * Propose indexes for the query methods of the given repository and the entries of {@code system.profile}
+     * for the collection of its entities.
+     * The profiler only has entries if it's enabled, for example with {@code db.setProfilingLevel(1)}.
+     */
+    public List<IndexCandidate> advise(Class<?> repositoryInterface) {
+        var domainType = AbstractRepositoryMetadata.getMetadata(repositoryInterface).getDomainType();
+        var collectionName = mongoTemplate.getCollectionName(domainType);
+        var namespace = mongoTemplate.getDb().getName() + "." + collectionName;
+
+        var shapes = new ArrayList<>(queryShapeExtractor.fromRepository(repositoryInterface));
+        var profile = mongoTemplate.getCollection("system.profile").find(new Document("ns", namespace));
+        shapes.addAll(queryShapeExtractor.fromProfile(profile, namespace));
+
+        var cardinalities = FieldCardinalities.sample(mongoTemplate.getCollection(collectionName), getFields(shapes),
+                DEFAULT_SAMPLE_SIZE);
+
+        return propose(shapes, cardinalities);
+    }
+
+    private static Collection<String> getFields(List<QueryShape> shapes) {
+        var fields = new LinkedHashSet<String>();
+        for (var shape : shapes) {
+            fields.addAll(shape.getEqualityFields());
+            fields.addAll(shape.getSortFields());
+            fields.addAll(shape.getRangeFields());
+        }
+
+        return fields;
+    }
+
+    /**
+     * @return the proposed indexes, ordered by how many entries they save their queries from examining
+     */
+    public static List<IndexCandidate> propose(List<QueryShape> shapes, FieldCardinalities cardinalities) {
+        var relevantShapes = shapes.stream()
+                .filter(shape -> !shape.isEmpty())
+                .toList();
+
+        var ownKeyPatterns = new LinkedHashMap<QueryShape, MongoIndexKeyPattern>();
+        for (var shape : relevantShapes) {
+            ownKeyPatterns.put(shape, MongoIndexKeyPattern.of(getKeys(shape, cardinalities)));
+        }
+        var keyPatterns = new ArrayList<MongoIndexKeyPattern>();
+        for (var keyPattern : ownKeyPatterns.values()) {
+            if (!keyPatterns.contains(keyPattern)) keyPatterns.add(keyPattern);
+        }
+        keyPatterns.removeIf(keyPattern -> keyPatterns.stream().anyMatch(keyPattern::isStrictPrefixOf));
+
+        var servedQueries = new LinkedHashMap<MongoIndexKeyPattern, List<QueryShape>>();
+        keyPatterns.forEach(keyPattern -> servedQueries.put(keyPattern, new ArrayList<>()));
+        for (var shape : relevantShapes) {
+            var ownKeyPattern = ownKeyPatterns.get(shape);
+            var best = keyPatterns.stream()
+                    .min(Comparator.comparingDouble((MongoIndexKeyPattern keyPattern) ->
+                                    estimateKeysExamined(keyPattern, shape, cardinalities))
+                            .thenComparing(keyPattern -> !providesSort(keyPattern, shape))
+                            .thenComparing(keyPattern -> !keyPattern.equals(ownKeyPattern)
+                                    && !ownKeyPattern.isStrictPrefixOf(keyPattern)))
+                    .orElseThrow();
+            servedQueries.get(best).add(shape);
+        }
+        servedQueries.values().removeIf(List::isEmpty);
+
+        var candidates = new ArrayList<IndexCandidate>();
+        servedQueries.forEach((keyPattern, served) -> candidates.add(toCandidate(keyPattern, served, cardinalities)));
+        candidates.sort(Comparator.comparingLong((IndexCandidate candidate) ->
+                candidate.getEstimatedDocumentsExaminedWithoutIndex() - candidate.getEstimatedKeysExamined()).reversed());
+        candidates.forEach(candidate -> log.info("Proposing index {} for {}, examining {} keys instead of {} documents",
+                candidate.getSpecification().getDefinition(),
+                candidate.getServedQueries().stream().map(QueryShape::getSource).toList(),
+                candidate.getEstimatedKeysExamined(), candidate.getEstimatedDocumentsExaminedWithoutIndex()));
+
+        return candidates;
+    }
+
+    /**
+     * Equality fields are ordered from most to least selective, so that queries on fewer fields share a prefix.
+     * A range field that's also sorted on is only included once, at the position of the sort.
+     */
+    static Document getKeys(QueryShape shape, FieldCardinalities cardinalities) {
+        var keys = new Document();
+        shape.getEqualityFields().stream()
+                .sorted(Comparator.comparingDouble(cardinalities::getEqualitySelectivity))
+                .forEach(field -> keys.append(field, 1));
+        shape.getSort().forEach(keys::putIfAbsent);
+        shape.getRangeFields().forEach(field -> keys.putIfAbsent(field, 1));
+
+        return keys;
+    }
+
+    /**
+     * The bounds of an index scan are narrowed by the leading fields that are compared with a single value,
+     * and by a range predicate on the field after them.
+     * Fields after a sort field or range field don't narrow the bounds any further.
+     * If the first field doesn't narrow the bounds, the whole index is scanned.
+     */
+    static double estimateKeysExamined(MongoIndexKeyPattern keyPattern, QueryShape shape,
+            FieldCardinalities cardinalities) {
+        double keys = cardinalities.getDocumentCount();
+        for (var i = 0; i < keyPattern.size(); ++i) {
+            var field = keyPattern.getField(i);
+            if (shape.getEqualityFields().contains(field)) {
+                keys *= cardinalities.getEqualitySelectivity(field);
+            } else {
+                if (shape.getRangeFields().contains(field)) keys *= FieldCardinalities.RANGE_SELECTIVITY;
+                break;
+            }
+        }
+
+        return Math.max(keys, 1);
+    }
+
+    /**
+     * An index returns results in the order of a sort if the sort fields directly follow the leading equality fields,
+     * in the same order and either all in the same direction as the sort or all in the opposite direction.
+     * Otherwise, the results are sorted in memory after they're fetched.
+     */
+    static boolean providesSort(MongoIndexKeyPattern keyPattern, QueryShape shape) {
+        var sortFields = shape.getSortFields();
+        if (sortFields.isEmpty()) return true;
+
+        var start = 0;
+        while (start < keyPattern.size() && shape.getEqualityFields().contains(keyPattern.getField(start))
+                && !sortFields.contains(keyPattern.getField(start))) {
+            ++start;
+        }
+        if (start + sortFields.size() > keyPattern.size()) return false;
+
+        Boolean reversed = null;
+        for (var i = 0; i < sortFields.size(); ++i) {
+            var field = sortFields.get(i);
+            if (!field.equals(keyPattern.getField(start + i))) return false;
+
+            var direction = String.valueOf(shape.getSort().get(field, Number.class).intValue());
+            var sameDirection = direction.equals(keyPattern.getDirection(start + i));
+            if (reversed == null) {
+                reversed = !sameDirection;
+            } else if (reversed == sameDirection) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static IndexCandidate toCandidate(MongoIndexKeyPattern keyPattern, List<QueryShape> served,
+            FieldCardinalities cardinalities) {
+        var keys = new Document();
+        for (var i = 0; i < keyPattern.size(); ++i) {
+            keys.append(keyPattern.getField(i), Integer.parseInt(keyPattern.getDirection(i)));
+        }
+        var specification = MongoIndexSpecification.builder()
+                .definition(keys.toJson())
+                .build();
+
+        var keysExamined = 0.0;
+        var documentsExamined = 0.0;
+        for (var shape : served) {
+            keysExamined += shape.getWeight() * estimateKeysExamined(keyPattern, shape, cardinalities);
+            documentsExamined += shape.getWeight() * (double) cardinalities.getDocumentCount();
+        }
+
+        return new IndexCandidate(specification, List.copyOf(served), Math.round(keysExamined),
+                Math.round(documentsExamined));
+    }
+}
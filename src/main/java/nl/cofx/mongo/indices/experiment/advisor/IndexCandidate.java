@@ -0,0 +1,34 @@
+package nl.cofx.mongo.indices.experiment.advisor;
+
+import lombok.Value;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexSpecification;
+
+import java.util.List;
+
+@Value
+public class IndexCandidate {
+
+    MongoIndexSpecification specification;
+
+    /**
+     * The queries for which this candidate is the best of all proposed indexes.
+     */
+    List<QueryShape> servedQueries;
+
+    /**
+     * Number of index keys examined by the served queries using this index, weighted by how often each query was found.
+     */
+    long estimatedKeysExamined;
+
+    /**
+     * Number of documents examined by the served queries without any index, weighted in the same way.
+     */
+    long estimatedDocumentsExaminedWithoutIndex;
+
+    /**
+     * @return how many times fewer entries the served queries examine with this index than without an index
+     */
+    public double getImprovementFactor() {
+        return (double) estimatedDocumentsExaminedWithoutIndex / Math.max(estimatedKeysExamined, 1);
+    }
+}
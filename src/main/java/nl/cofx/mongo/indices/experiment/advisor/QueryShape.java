@@ -0,0 +1,62 @@
+package nl.cofx.mongo.indices.experiment.advisor;
+
+import lombok.Value;
+import org.bson.Document;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The parts of a query that determine which index serves it, regardless of the values it's executed with.
+ * Field names are those used in the collection, such as {@code _id} instead of {@code id}.
+ */
+@Value
+public class QueryShape {
+
+    /**
+     * Fields compared with a single value, or with one of several values using {@code $in}.
+     */
+    Set<String> equalityFields;
+
+    /**
+     * Fields and directions of the sort, such as {@code { randomLong: 1 }}, in the order in which they're sorted.
+     */
+    Document sort;
+
+    /**
+     * Fields with bounds on their values, such as {@code $gt} or {@code $lte}.
+     */
+    Set<String> rangeFields;
+
+    /**
+     * Where the query was found, such as the name of a repository method.
+     */
+    String source;
+
+    /**
+     * How often the query was found, which is one for repository methods and the number of entries for profiled queries.
+     */
+    long weight;
+
+    public boolean isEmpty() {
+        return equalityFields.isEmpty() && sort.isEmpty() && rangeFields.isEmpty();
+    }
+
+    public List<String> getSortFields() {
+        return List.copyOf(sort.keySet());
+    }
+
+    /**
+     * @return whether both shapes are served by the same indexes, regardless of where they were found
+     */
+    public boolean hasSameShapeAs(QueryShape other) {
+        return equalityFields.equals(other.equalityFields)
+                && getSortFields().equals(other.getSortFields())
+                && sort.equals(other.sort)
+                && rangeFields.equals(other.rangeFields);
+    }
+
+    public QueryShape withWeight(long weight) {
+        return new QueryShape(equalityFields, sort, rangeFields, source, weight);
+    }
+}
@@ -0,0 +1,226 @@
+package nl.cofx.mongo.indices.experiment.advisor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.core.support.AbstractRepositoryMetadata;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Derives {@link QueryShape}s from the query methods of a repository and from the entries of the profiler.
+ * <p>
+ * For derived query methods, such as {@code findAllByRandomLongGreaterThan}, the shape follows from the name of the method.
+ * For methods annotated with {@link Query}, the filter and sort of the annotation are inspected.
+ * Sorts passed as {@link org.springframework.data.domain.Pageable} are only known at runtime,
+ * which is where the profiler comes in.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class QueryShapeExtractor {
+
+    private static final Set<Part.Type> EQUALITY_TYPES = Set.of(Part.Type.SIMPLE_PROPERTY, Part.Type.TRUE, Part.Type.FALSE,
+            Part.Type.IS_NULL, Part.Type.IN);
+    private static final Set<Part.Type> RANGE_TYPES = Set.of(Part.Type.BETWEEN, Part.Type.LESS_THAN,
+            Part.Type.LESS_THAN_EQUAL, Part.Type.GREATER_THAN, Part.Type.GREATER_THAN_EQUAL, Part.Type.BEFORE,
+            Part.Type.AFTER, Part.Type.STARTING_WITH);
+    private static final Set<String> EQUALITY_OPERATORS = Set.of("$eq", "$in");
+    private static final Set<String> RANGE_OPERATORS = Set.of("$gt", "$gte", "$lt", "$lte");
+    private static final Pattern PARAMETER_PLACEHOLDER = Pattern.compile("\\?\\d+");
+
+    private final MongoMappingContext mappingContext;
+
+    /**
+     * Only the methods declared by the given interface itself are inspected,
+     * so that the generic methods of {@link org.springframework.data.repository.CrudRepository} are left out.
+     * Methods that can't be parsed, such as those of custom fragments, are skipped.
+     */
+    public List<QueryShape> fromRepository(Class<?> repositoryInterface) {
+        var domainType = AbstractRepositoryMetadata.getMetadata(repositoryInterface).getDomainType();
+        var shapes = new ArrayList<QueryShape>();
+        var methods = repositoryInterface.getDeclaredMethods();
+        for (var method : methods) {
+            if (method.isDefault() || method.isSynthetic()) continue;
+
+            try {
+                shapes.addAll(fromMethod(method, domainType));
+            } catch (PropertyReferenceException | IllegalArgumentException e) {
+                log.info("Skipping method {}, because its query can't be derived: {}", method.getName(), e.getMessage());
+            }
+        }
+        shapes.sort(Comparator.comparing(QueryShape::getSource));
+
+        return shapes;
+    }
+
+    private List<QueryShape> fromMethod(Method method, Class<?> domainType) {
+        var source = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        var query = method.getAnnotation(Query.class);
+        if (query != null && !query.value().isEmpty()) {
+            var filter = parse(query.value());
+            var sort = query.sort().isEmpty() ? new Document() : parse(query.sort());
+            return List.of(fromFilter(filter, sort, source, 1));
+        }
+
+        var tree = new PartTree(method.getName(), domainType);
+        var sort = toSort(tree.getSort(), domainType);
+        var shapes = new ArrayList<QueryShape>();
+        for (var orPart : tree) {
+            var equalityFields = new LinkedHashSet<String>();
+            var rangeFields = new LinkedHashSet<String>();
+            for (var part : orPart) {
+                var field = getFieldName(part.getProperty());
+                if (EQUALITY_TYPES.contains(part.getType())) {
+                    equalityFields.add(field);
+                } else if (RANGE_TYPES.contains(part.getType())) {
+                    rangeFields.add(field);
+                }
+            }
+            rangeFields.removeAll(equalityFields);
+            shapes.add(new QueryShape(equalityFields, withoutFields(sort, equalityFields), rangeFields, source, 1));
+        }
+
+        return shapes;
+    }
+
+    private Document toSort(Sort sort, Class<?> domainType) {
+        var document = new Document();
+        for (var order : sort) {
+            var field = getFieldName(PropertyPath.from(order.getProperty(), domainType));
+            document.append(field, order.isAscending() ? 1 : -1);
+        }
+
+        return document;
+    }
+
+    private String getFieldName(PropertyPath propertyPath) {
+        return mappingContext.getPersistentPropertyPath(propertyPath).toDotPath(MongoPersistentProperty::getFieldName);
+    }
+
+    /**
+     * Parameters such as {@code ?0} are replaced by {@code null}, because only the structure of the query matters.
+     */
+    private static Document parse(String json) {
+        return Document.parse(PARAMETER_PLACEHOLDER.matcher(json).replaceAll("null"));
+    }
+
+    /**
+     * Extract the shapes of the {@code find} and {@code count} commands on the given namespace from entries of
+     * {@code system.profile}, combining entries with the same shape.
+     */
+    public List<QueryShape> fromProfile(Iterable<Document> entries, String namespace) {
+        var shapes = new ArrayList<QueryShape>();
+        for (var entry : entries) {
+            if (!namespace.equals(entry.getString("ns"))) continue;
+
+            var shape = fromProfileEntry(entry);
+            if (shape == null || shape.isEmpty()) continue;
+
+            var index = indexOfSameShape(shapes, shape);
+            if (index < 0) {
+                shapes.add(shape);
+            } else {
+                var existing = shapes.get(index);
+                shapes.set(index, existing.withWeight(existing.getWeight() + 1));
+            }
+        }
+
+        return shapes;
+    }
+
+    private static int indexOfSameShape(List<QueryShape> shapes, QueryShape shape) {
+        for (var i = 0; i < shapes.size(); ++i) {
+            if (shapes.get(i).hasSameShapeAs(shape)) return i;
+        }
+
+        return -1;
+    }
+
+    private static QueryShape fromProfileEntry(Document entry) {
+        var command = entry.get("command", Document.class);
+        if (command == null) return null;
+
+        var source = "profile " + entry.getString("op");
+        if (command.containsKey("find")) {
+            var filter = command.get("filter", Document.class);
+            var sort = command.get("sort", Document.class);
+            return fromFilter(filter == null ? new Document() : filter, sort == null ? new Document() : sort, source, 1);
+        }
+        if (command.containsKey("count")) {
+            var query = command.get("query", Document.class);
+            return fromFilter(query == null ? new Document() : query, new Document(), source, 1);
+        }
+
+        return null;
+    }
+
+    static QueryShape fromFilter(Document filter, Document sort, String source, long weight) {
+        var equalityFields = new LinkedHashSet<String>();
+        var rangeFields = new LinkedHashSet<String>();
+        collectFields(filter, equalityFields, rangeFields);
+        rangeFields.removeAll(equalityFields);
+
+        var normalizedSort = new Document();
+        sort.forEach((field, direction) -> normalizedSort.append(field,
+                direction instanceof Number number && number.doubleValue() < 0 ? -1 : 1));
+
+        return new QueryShape(equalityFields, withoutFields(normalizedSort, equalityFields), rangeFields, source, weight);
+    }
+
+    /**
+     * Conditions combined with {@code $and} are inspected as well.
+     * Those combined with {@code $or} are skipped, because each branch of such a query needs an index of its own.
+     */
+    private static void collectFields(Document filter, Set<String> equalityFields, Set<String> rangeFields) {
+        for (var entry : filter.entrySet()) {
+            var field = entry.getKey();
+            var value = entry.getValue();
+            if (field.equals("$and") && value instanceof List<?> conditions) {
+                for (var condition : conditions) {
+                    if (condition instanceof Document document) collectFields(document, equalityFields, rangeFields);
+                }
+                continue;
+            }
+            if (field.startsWith("$")) continue;
+
+            if (!(value instanceof Document operators) || !isOperatorDocument(operators)) {
+                equalityFields.add(field);
+            } else if (operators.keySet().stream().anyMatch(EQUALITY_OPERATORS::contains)) {
+                equalityFields.add(field);
+            } else if (operators.keySet().stream().anyMatch(RANGE_OPERATORS::contains)) {
+                rangeFields.add(field);
+            }
+        }
+    }
+
+    private static boolean isOperatorDocument(Document document) {
+        return !document.isEmpty() && document.keySet().iterator().next().startsWith("$");
+    }
+
+    /**
+     * Sorting on a field that's compared with a single value doesn't change the order of the results.
+     */
+    private static Document withoutFields(Document sort, Set<String> fields) {
+        var result = new LinkedHashMap<String, Object>();
+        sort.forEach((field, direction) -> {
+            if (!fields.contains(field)) result.put(field, direction);
+        });
+
+        return new Document(result);
+    }
+}
@@ -0,0 +1,123 @@
+package nl.cofx.mongo.indices.experiment.explain;
+
+import lombok.Value;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The plan that was used to execute a query, as reported by {@code explain} with verbosity {@code executionStats}.
+ */
+@Value
+public class QueryPlan {
+
+    private static final String COLLECTION_SCAN = "COLLSCAN";
+    private static final String INDEX_SCAN = "IXSCAN";
+    private static final String COVERED_PROJECTION = "PROJECTION_COVERED";
+    private static final String FETCH = "FETCH";
+
+    /**
+     * The stages of the winning plan, from the root to the leaves.
+     */
+    List<String> stages;
+
+    /**
+     * The stage that reads the data: {@code IXSCAN} if an index is used, {@code COLLSCAN} if the collection is scanned.
+     */
+    String accessStage;
+
+    String indexName;
+    long keysExamined;
+    long docsExamined;
+    long nReturned;
+    long executionTimeMillis;
+
+    public static QueryPlan from(Document explanation) {
+        var winningPlan = explanation.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        if (winningPlan.containsKey("queryPlan")) {
+            // Plans executed by the slot-based execution engine nest the classic plan.
+            winningPlan = winningPlan.get("queryPlan", Document.class);
+        }
+
+        var stages = new ArrayList<Document>();
+        collectStages(winningPlan, stages);
+        var stageNames = stages.stream()
+                .map(stage -> stage.getString("stage"))
+                .toList();
+        var indexName = stages.stream()
+                .filter(stage -> INDEX_SCAN.equals(stage.getString("stage")))
+                .map(stage -> stage.getString("indexName"))
+                .findFirst()
+                .orElse(null);
+        var accessStage = stageNames.contains(INDEX_SCAN) ? INDEX_SCAN
+                : stageNames.contains(COLLECTION_SCAN) ? COLLECTION_SCAN
+                : stageNames.get(stageNames.size() - 1);
+
+        var executionStats = explanation.get("executionStats", Document.class);
+        return new QueryPlan(stageNames, accessStage, indexName,
+                getLong(executionStats, "totalKeysExamined"),
+                getLong(executionStats, "totalDocsExamined"),
+                getLong(executionStats, "nReturned"),
+                getLong(executionStats, "executionTimeMillis"));
+    }
+
+    private static void collectStages(Document stage, List<Document> stages) {
+        stages.add(stage);
+
+        var inputStage = stage.get("inputStage", Document.class);
+        if (inputStage != null) collectStages(inputStage, stages);
+
+        var inputStages = stage.getList("inputStages", Document.class);
+        if (inputStages != null) inputStages.forEach(input -> collectStages(input, stages));
+    }
+
+    private static long getLong(Document document, String key) {
+        if (document == null) return 0;
+
+        var value = document.get(key, Number.class);
+        return value == null ? 0 : value.longValue();
+    }
+
+    public boolean isCollectionScan() {
+        return COLLECTION_SCAN.equals(accessStage);
+    }
+
+    /**
+     * @return whether the query was answered from an index alone, without fetching any documents
+     */
+    public boolean isCovered() {
+        return stages.contains(COVERED_PROJECTION) && !stages.contains(FETCH) && docsExamined == 0;
+    }
+
+    /**
+     * @return the number of keys or documents examined, whichever is larger, per document returned
+     */
+    public double getExaminedToReturnedRatio() {
+        return (double) Math.max(keysExamined, docsExamined) / Math.max(nReturned, 1);
+    }
+
+    /**
+     * @throws QueryPlanRegression if the collection was scanned,
+     *                             or if more keys or documents were examined per document returned than allowed
+     */
+    public void verify(double maxExaminedToReturnedRatio) {
+        if (isCollectionScan()) {
+            throw new QueryPlanRegression("Query scans the collection: " + this);
+        }
+
+        if (getExaminedToReturnedRatio() > maxExaminedToReturnedRatio) {
+            throw new QueryPlanRegression("Query examines %.1f keys or documents per document returned, more than %.1f: %s"
+                    .formatted(getExaminedToReturnedRatio(), maxExaminedToReturnedRatio, this));
+        }
+    }
+
+    /**
+     * @throws QueryPlanRegression if documents had to be fetched to answer the query
+     */
+    public void verifyCovered() {
+        if (!isCovered()) {
+            throw new QueryPlanRegression("Query isn't covered by an index: " + this);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package nl.cofx.mongo.indices.experiment.explain;
+
+import com.mongodb.ExplainVerbosity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueryPlanInspector {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Execute the given query with {@code explain} and return the plan that was used.
+     * Like {@link MongoTemplate}, the query is mapped to the entity first,
+     * so that properties such as {@code id} refer to the fields they're stored in.
+     */
+    public QueryPlan explain(Query query, Class<?> entityClass) {
+        var queryMapper = new QueryMapper(mongoTemplate.getConverter());
+        var entity = mongoTemplate.getConverter().getMappingContext().getPersistentEntity(entityClass);
+        var collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(entityClass));
+        var explanation = collection.find(queryMapper.getMappedObject(query.getQueryObject(), entity))
+                .projection(queryMapper.getMappedFields(query.getFieldsObject(), entity))
+                .sort(queryMapper.getMappedSort(query.getSortObject(), entity))
+                .skip((int) query.getSkip())
+                .limit(query.getLimit())
+                .explain(ExplainVerbosity.EXECUTION_STATS);
+
+        var queryPlan = QueryPlan.from(explanation);
+        log.info("Plan for query {}: {}", query, queryPlan);
+
+        return queryPlan;
+    }
+}
@@ -0,0 +1,8 @@
+package nl.cofx.mongo.indices.experiment.explain;
+
+public class QueryPlanRegression extends RuntimeException {
+
+    public QueryPlanRegression(String message) {
+        super(message);
+    }
+}
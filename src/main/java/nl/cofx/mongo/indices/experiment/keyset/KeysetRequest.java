@@ -0,0 +1,36 @@
+package nl.cofx.mongo.indices.experiment.keyset;
+
+import lombok.Value;
+
+/**
+ * Request for a slice of results that continues where a previous slice ended.
+ */
+@Value
+public class KeysetRequest {
+
+    int size;
+
+    /**
+     * Continuation token of the previous slice, or {@code null} to request the first slice.
+     */
+    String token;
+
+    public KeysetRequest(int size, String token) {
+        if (size < 1) throw new IllegalArgumentException("Size of slice must be positive, but was " + size);
+
+        this.size = size;
+        this.token = token;
+    }
+
+    public static KeysetRequest first(int size) {
+        return new KeysetRequest(size, null);
+    }
+
+    public static KeysetRequest after(String token, int size) {
+        return new KeysetRequest(size, token);
+    }
+
+    public boolean isFirst() {
+        return token == null;
+    }
+}
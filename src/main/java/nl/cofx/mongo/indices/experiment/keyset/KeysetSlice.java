@@ -0,0 +1,28 @@
+package nl.cofx.mongo.indices.experiment.keyset;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A slice of results, together with a token to continue after its last element.
+ * Unlike a {@link org.springframework.data.domain.Page}, a slice doesn't know the total number of results.
+ */
+@Value
+public class KeysetSlice<T> {
+
+    List<T> content;
+
+    /**
+     * Opaque token to pass to {@link KeysetRequest#after(String, int)}, or {@code null} if this is the last slice.
+     */
+    String nextToken;
+
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+
+    public KeysetRequest nextRequest() {
+        return hasNext() ? KeysetRequest.after(nextToken, content.size()) : null;
+    }
+}
@@ -0,0 +1,50 @@
+package nl.cofx.mongo.indices.experiment.keyset;
+
+import lombok.Value;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after which a slice continues: the value of the field the results are ordered by,
+ * and the identifier of the last result, which breaks ties between equal values.
+ * <p>
+ * Tokens are encoded as extended JSON, so that the types of the values survive the round trip,
+ * and are Base64 encoded to keep them opaque and safe to use in URLs.
+ */
+@Value
+public class KeysetToken {
+
+    private static final JsonWriterSettings JSON_WRITER_SETTINGS = JsonWriterSettings.builder()
+            .outputMode(JsonMode.EXTENDED)
+            .build();
+
+    Object value;
+    String id;
+
+    public String encode() {
+        var json = new Document("v", value).append("id", id).toJson(JSON_WRITER_SETTINGS);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the given token wasn't created by {@link #encode()}
+     */
+    public static KeysetToken decode(String token) {
+        Document document;
+        try {
+            document = Document.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+
+        if (!(document.get("id") instanceof String id)) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token);
+        }
+
+        return new KeysetToken(document.get("v"), id);
+    }
+}
@@ -0,0 +1,58 @@
+package nl.cofx.mongo.indices.experiment.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import lombok.Value;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The current values of a timer or distribution summary, with times in milliseconds.
+ */
+@Value
+public class MeterSummary {
+
+    String name;
+    Map<String, String> tags;
+    long count;
+    double mean;
+    double max;
+
+    /**
+     * Percentiles computed in the application, such as {@code 0.99}, which are only available if the meter publishes them.
+     */
+    Map<Double, Double> percentiles;
+
+    static MeterSummary of(Meter meter) {
+        var tags = new TreeMap<String, String>();
+        for (Tag tag : meter.getId().getTags()) {
+            tags.put(tag.getKey(), tag.getValue());
+        }
+
+        if (meter instanceof Timer timer) {
+            return of(meter.getId().getName(), tags, timer.takeSnapshot(), TimeUnit.MILLISECONDS);
+        }
+        if (meter instanceof DistributionSummary summary) {
+            return of(meter.getId().getName(), tags, summary.takeSnapshot(), null);
+        }
+
+        return null;
+    }
+
+    private static MeterSummary of(String name, Map<String, String> tags, HistogramSnapshot snapshot, TimeUnit unit) {
+        var percentiles = new TreeMap<Double, Double>();
+        for (var percentile : snapshot.percentileValues()) {
+            percentiles.put(percentile.percentile(), unit == null ? percentile.value() : percentile.value(unit));
+        }
+
+        return new MeterSummary(name, tags, snapshot.count(),
+                unit == null ? snapshot.mean() : snapshot.mean(unit),
+                unit == null ? snapshot.max() : snapshot.max(unit),
+                percentiles);
+    }
+}
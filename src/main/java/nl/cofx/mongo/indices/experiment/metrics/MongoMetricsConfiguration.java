@@ -0,0 +1,36 @@
+package nl.cofx.mongo.indices.experiment.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import nl.cofx.mongo.indices.experiment.RandomDataIndexCreator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adds the size of command replies to the metrics that Spring Boot already records for MongoDB,
+ * which are the latency of commands and the state of connection pools, and exposes them through {@link MongoMetricsEndpoint}.
+ * Index operations record their timers in the global registry, to which Spring Boot adds its own registry.
+ */
+@Configuration
+public class MongoMetricsConfiguration {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoReplySizeCustomizer(ObjectProvider<MeterRegistry> meterRegistry) {
+        return builder -> builder.addCommandListener(new MongoReplySizeCommandListener(getRegistry(meterRegistry)));
+    }
+
+    @Bean
+    public MongoMetricsEndpoint mongoMetricsEndpoint(ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<RandomDataIndexCreator> randomDataIndexCreator) {
+        return new MongoMetricsEndpoint(getRegistry(meterRegistry), randomDataIndexCreator);
+    }
+
+    /**
+     * Test slices that don't configure metrics have no registry, in which case the global registry is used.
+     */
+    private static MeterRegistry getRegistry(ObjectProvider<MeterRegistry> meterRegistry) {
+        return meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+}
@@ -0,0 +1,73 @@
+package nl.cofx.mongo.indices.experiment.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import lombok.RequiredArgsConstructor;
+import nl.cofx.mongo.indices.experiment.RandomDataIndexCreator;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexBuildStatus;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Actuator endpoint {@code mongo} that summarizes the latency of index operations, driver commands, and repository
+ * queries, the size of command replies, and the index builds of {@link RandomDataIndexCreator}.
+ * <p>
+ * The meters themselves are also available through the {@code metrics} endpoint and any configured monitoring system,
+ * which is where alerts on slow index builds and query latency regressions belong.
+ */
+@Endpoint(id = "mongo")
+@RequiredArgsConstructor
+public class MongoMetricsEndpoint {
+
+    static final List<String> METER_NAMES = List.of(
+            "mongo.index.operations",
+            "mongodb.driver.commands",
+            MongoReplySizeCommandListener.SUMMARY_NAME,
+            "spring.data.repository.invocations");
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<RandomDataIndexCreator> randomDataIndexCreator;
+
+    @ReadOperation
+    public Map<String, Object> summarize() {
+        var result = new LinkedHashMap<String, Object>();
+        for (var name : METER_NAMES) {
+            result.put(name, summarize(name));
+        }
+        result.put("mongodb.driver.pool", summarizePools());
+
+        var indexCreator = randomDataIndexCreator.getIfAvailable();
+        result.put("indexBuilds", indexCreator == null ? List.<MongoIndexBuildStatus>of() : indexCreator.getIndexBuilds());
+
+        return result;
+    }
+
+    private List<MeterSummary> summarize(String name) {
+        return Search.in(meterRegistry).name(name).meters().stream()
+                .map(MeterSummary::of)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingDouble(MeterSummary::getMax).reversed())
+                .toList();
+    }
+
+    private List<Map<String, Object>> summarizePools() {
+        var pools = new ArrayList<Map<String, Object>>();
+        Search.in(meterRegistry).name(name -> name.startsWith("mongodb.driver.pool.")).gauges().forEach(gauge -> {
+            var pool = new LinkedHashMap<String, Object>();
+            pool.put("name", gauge.getId().getName());
+            gauge.getId().getTags().forEach(tag -> pool.put(tag.getKey(), tag.getValue()));
+            pool.put("value", gauge.value());
+            pools.add(pool);
+        });
+
+        return pools;
+    }
+}
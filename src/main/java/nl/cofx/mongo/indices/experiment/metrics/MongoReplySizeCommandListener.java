@@ -0,0 +1,87 @@
+package nl.cofx.mongo.indices.experiment.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the size of the replies to driver commands in the distribution summary {@value #SUMMARY_NAME},
+ * tagged by command and collection.
+ * <p>
+ * The latency of commands is already recorded by the listener that Spring Boot registers for {@code mongodb.driver.commands}.
+ * Replies are encoded to determine their size, unless the driver passes them as raw BSON.
+ */
+public class MongoReplySizeCommandListener implements CommandListener {
+
+    static final String SUMMARY_NAME = "mongodb.driver.commands.reply.size";
+    private static final String UNKNOWN_COLLECTION = "unknown";
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, String> collectionsByRequestId = new ConcurrentHashMap<>();
+
+    public MongoReplySizeCommandListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        var collection = getCollection(event.getCommand(), event.getCommandName());
+        if (collection != null) collectionsByRequestId.put(event.getRequestId(), collection);
+    }
+
+    /**
+     * The name of the command is the first key of the command document, and its value is the collection,
+     * except for commands such as {@code getMore}, which name the collection separately.
+     */
+    private static String getCollection(BsonDocument command, String commandName) {
+        var value = command.get(commandName);
+        if (value != null && value.isString()) return value.asString().getValue();
+
+        var collection = command.get("collection");
+        if (collection != null && collection.isString()) return collection.asString().getValue();
+
+        return null;
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        var collection = collectionsByRequestId.remove(event.getRequestId());
+        DistributionSummary.builder(SUMMARY_NAME)
+                .description("Size of the replies to commands sent by the driver")
+                .baseUnit("bytes")
+                .tag("command", event.getCommandName())
+                .tag("collection", collection == null ? UNKNOWN_COLLECTION : collection)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(getSize(event.getResponse()));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        collectionsByRequestId.remove(event.getRequestId());
+    }
+
+    static int getSize(BsonDocument document) {
+        if (document instanceof RawBsonDocument raw) return raw.getByteBuffer().remaining();
+
+        var buffer = new BasicOutputBuffer();
+        try (var writer = new BsonBinaryWriter(buffer)) {
+            CODEC.encode(writer, document, EncoderContext.builder().build());
+        }
+
+        return buffer.getSize();
+    }
+}
@@ -0,0 +1,8 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+public class IndexPlanCouldNotBeApplied extends RuntimeException {
+
+    public IndexPlanCouldNotBeApplied(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,30 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Health of the cluster as observed by a {@link MongoIndexBuildGuard}.
+ */
+@Value
+public class MongoClusterHealth {
+
+    public static final MongoClusterHealth HEALTHY = new MongoClusterHealth(Duration.ZERO, Duration.ZERO, null);
+
+    /**
+     * How far the slowest secondary is behind the primary.
+     */
+    Duration replicationLag;
+
+    Duration probeLatency;
+
+    /**
+     * Description of the threshold that was exceeded, or {@code null} if the cluster is healthy.
+     */
+    String problem;
+
+    public boolean isHealthy() {
+        return problem == null;
+    }
+}
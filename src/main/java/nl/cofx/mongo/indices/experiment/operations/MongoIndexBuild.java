@@ -0,0 +1,139 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Mutable bookkeeping for a single build tracked by {@link MongoIndexBuildManager}.
+ */
+class MongoIndexBuild {
+
+    private final CompletableFuture<MongoIndexBuildStatus> completion = new CompletableFuture<>();
+    private final List<MongoIndexSpecification> pendingSpecifications;
+
+    private volatile MongoIndexBuildStatus status;
+    private volatile String abortReason;
+    private Instant attemptStartedAt;
+
+    MongoIndexBuild(String id, List<MongoIndexSpecification> specifications,
+            List<MongoIndexSpecification> pendingSpecifications) {
+        this.pendingSpecifications = pendingSpecifications;
+        this.status = MongoIndexBuildStatus.builder()
+                .id(id)
+                .specifications(specifications)
+                .state(MongoIndexBuildState.QUEUED)
+                .attached(pendingSpecifications.size() < specifications.size())
+                .build();
+    }
+
+    MongoIndexBuildStatus getStatus() {
+        return status;
+    }
+
+    CompletableFuture<MongoIndexBuildStatus> getCompletion() {
+        return completion;
+    }
+
+    List<MongoIndexSpecification> getSpecifications() {
+        return status.getSpecifications();
+    }
+
+    /**
+     * The specifications that weren't already being built on the server when the build was submitted.
+     */
+    List<MongoIndexSpecification> getPendingSpecifications() {
+        return pendingSpecifications;
+    }
+
+    boolean isAttachedOnly() {
+        return pendingSpecifications.isEmpty();
+    }
+
+    /**
+     * Start the build, or restart it after it was paused, in which case it keeps its original start time.
+     */
+    synchronized void start(Instant startedAt) {
+        abortReason = null;
+        attemptStartedAt = startedAt;
+        status = status.toBuilder()
+                .state(MongoIndexBuildState.BUILDING)
+                .waitingFor(null)
+                .startedAt(status.getStartedAt() == null ? startedAt : status.getStartedAt())
+                .build();
+    }
+
+    /**
+     * Keep the build queued or paused until the cluster has recovered from the given problem.
+     */
+    synchronized void waitFor(String problem) {
+        status = status.toBuilder()
+                .waitingFor(problem)
+                .build();
+    }
+
+    /**
+     * @return whether abortion wasn't requested before
+     */
+    synchronized boolean requestAbort(String reason) {
+        if (abortReason != null) return false;
+
+        abortReason = reason;
+        return true;
+    }
+
+    boolean isAbortRequested() {
+        return abortReason != null;
+    }
+
+    /**
+     * Pause the build after it was aborted, until the cluster has recovered from the problem that caused the abortion.
+     */
+    synchronized void pause() {
+        status = status.toBuilder()
+                .state(MongoIndexBuildState.PAUSED)
+                .waitingFor(abortReason)
+                .restarts(status.getRestarts() + 1)
+                .done(0)
+                .total(0)
+                .estimatedTimeRemaining(null)
+                .build();
+    }
+
+    synchronized void updateProgress(long done, long total, Instant now) {
+        status = status.toBuilder()
+                .done(done)
+                .total(total)
+                .estimatedTimeRemaining(estimateTimeRemaining(done, total, now))
+                .build();
+    }
+
+    private Duration estimateTimeRemaining(long done, long total, Instant now) {
+        var startedAt = attemptStartedAt;
+        if (startedAt == null || done <= 0 || total < done) return null;
+
+        var elapsedMillis = (double) Duration.between(startedAt, now).toMillis();
+        return Duration.ofMillis((long) (elapsedMillis / done * (total - done)));
+    }
+
+    synchronized void finish(Instant finishedAt) {
+        status = status.toBuilder()
+                .state(MongoIndexBuildState.DONE)
+                .done(status.getTotal())
+                .estimatedTimeRemaining(Duration.ZERO)
+                .finishedAt(finishedAt)
+                .build();
+        completion.complete(status);
+    }
+
+    synchronized void fail(String failure, Instant finishedAt) {
+        status = status.toBuilder()
+                .state(MongoIndexBuildState.FAILED)
+                .estimatedTimeRemaining(null)
+                .failure(failure)
+                .finishedAt(finishedAt)
+                .build();
+        completion.complete(status);
+    }
+}
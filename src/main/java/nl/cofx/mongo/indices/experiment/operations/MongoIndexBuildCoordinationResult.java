@@ -0,0 +1,29 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+@Value
+public class MongoIndexBuildCoordinationResult {
+
+    public enum Outcome {
+        /**
+         * This instance held the lease and ran the build, which may have failed according to its status.
+         */
+        BUILT,
+        /**
+         * Another instance held the lease, and the indexes existed once it was released.
+         */
+        BUILT_ELSEWHERE,
+        /**
+         * The indexes already existed, so no lease was needed.
+         */
+        ALREADY_PRESENT
+    }
+
+    Outcome outcome;
+
+    /**
+     * Final status of the build of this instance, or {@code null} if it didn't build.
+     */
+    MongoIndexBuildStatus status;
+}
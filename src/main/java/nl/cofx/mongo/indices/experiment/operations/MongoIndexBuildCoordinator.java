@@ -0,0 +1,219 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes sure that only one of several instances of an application builds the indexes of a collection.
+ * <p>
+ * The instance that acquires a {@link MongoIndexBuildLease} builds the missing indexes with a {@link MongoIndexBuildManager},
+ * renewing the lease while the build runs.
+ * The other instances watch the lock document with a change stream until the lease is released or expires,
+ * and then check whether the indexes exist.
+ * If the instance holding the lease stops without releasing it, the lease expires and another instance takes over.
+ * Change streams require a replica set, so on a standalone server the lock document is polled instead.
+ */
+@Slf4j
+public class MongoIndexBuildCoordinator implements AutoCloseable {
+
+    public static final String DEFAULT_LOCK_COLLECTION_NAME = "indexBuildLocks";
+    private static final Duration DEFAULT_LEASE_DURATION = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(5);
+    private static final Duration MAX_AWAIT_TIME = Duration.ofSeconds(1);
+    private static final int CHANGE_STREAMS_NOT_SUPPORTED = 40573;
+
+    private final String instanceId;
+    private final MongoIndexOperations mongoIndexOperations;
+    private final MongoIndexBuildManager mongoIndexBuildManager;
+    private final MongoCollection<Document> locks;
+    private final MongoIndexBuildLease lease;
+    private final Duration pollInterval;
+    private final ExecutorService coordinationExecutor = Executors.newSingleThreadExecutor(daemonThreadFactory("index-build-coordination"));
+    private final ScheduledExecutorService renewalExecutor = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("index-build-lease"));
+
+    private volatile boolean changeStreamsSupported = true;
+
+    public MongoIndexBuildCoordinator(String databaseName, String collectionName, MongoClient mongoClient,
+            MongoIndexBuildManager mongoIndexBuildManager) {
+        this(databaseName, collectionName, mongoClient, mongoIndexBuildManager, UUID.randomUUID().toString(),
+                DEFAULT_LEASE_DURATION, DEFAULT_POLL_INTERVAL);
+    }
+
+    /**
+     * @param instanceId    identifies this instance as the holder of the lease
+     * @param leaseDuration how long another instance waits before taking over from an instance that stopped without
+     *                      releasing the lease
+     * @param pollInterval  how often the lock document is read if changes to it can't be watched
+     */
+    public MongoIndexBuildCoordinator(String databaseName, String collectionName, MongoClient mongoClient,
+            MongoIndexBuildManager mongoIndexBuildManager, String instanceId, Duration leaseDuration,
+            Duration pollInterval) {
+        this.instanceId = instanceId;
+        this.mongoIndexOperations = new MongoIndexOperations(databaseName, collectionName, mongoClient);
+        this.mongoIndexBuildManager = mongoIndexBuildManager;
+        this.locks = mongoClient.getDatabase(databaseName).getCollection(DEFAULT_LOCK_COLLECTION_NAME);
+        this.lease = new MongoIndexBuildLease(locks, databaseName + "." + collectionName, instanceId, leaseDuration);
+        this.pollInterval = pollInterval;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return runnable -> {
+            var thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Make sure the indexes matching the given specifications exist, building them if this instance gets the lease,
+     * and return immediately.
+     *
+     * @return a future that completes once the indexes exist or this instance failed to build them
+     */
+    public CompletableFuture<MongoIndexBuildCoordinationResult> ensureIndexes(List<MongoIndexSpecification> specifications) {
+        var specificationsCopy = List.copyOf(specifications);
+        var completion = new CompletableFuture<MongoIndexBuildCoordinationResult>();
+        coordinationExecutor.execute(() -> {
+            try {
+                completion.complete(coordinate(specificationsCopy));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                completion.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                completion.completeExceptionally(e);
+            }
+        });
+
+        return completion;
+    }
+
+    private MongoIndexBuildCoordinationResult coordinate(List<MongoIndexSpecification> specifications)
+            throws InterruptedException {
+        var waited = false;
+        while (true) {
+            if (allIndexesExist(specifications)) {
+                var outcome = waited
+                        ? MongoIndexBuildCoordinationResult.Outcome.BUILT_ELSEWHERE
+                        : MongoIndexBuildCoordinationResult.Outcome.ALREADY_PRESENT;
+                log.info("Indexes for specifications {} exist: {}", specifications, outcome);
+                return new MongoIndexBuildCoordinationResult(outcome, null);
+            }
+
+            if (lease.tryAcquire()) {
+                try {
+                    if (allIndexesExist(specifications)) continue;
+
+                    log.info("Acquired lease {} as {}, building indexes for specifications {}",
+                            lease.getKey(), instanceId, specifications);
+                    var status = buildHoldingLease(specifications);
+                    return new MongoIndexBuildCoordinationResult(MongoIndexBuildCoordinationResult.Outcome.BUILT, status);
+                } finally {
+                    lease.release();
+                }
+            }
+
+            waited = true;
+            log.info("Waiting for instance {} to release lease {}", lease.getHolder(), lease.getKey());
+            awaitRelease();
+        }
+    }
+
+    private boolean allIndexesExist(List<MongoIndexSpecification> specifications) {
+        mongoIndexOperations.invalidateIndexCatalog();
+
+        return specifications.stream()
+                .map(mongoIndexOperations::findIndex)
+                .allMatch(Objects::nonNull);
+    }
+
+    private MongoIndexBuildStatus buildHoldingLease(List<MongoIndexSpecification> specifications)
+            throws InterruptedException {
+        var renewalMillis = Math.max(1, lease.getDuration().toMillis() / 3);
+        var renewal = renewalExecutor.scheduleWithFixedDelay(this::renewLease, renewalMillis, renewalMillis,
+                TimeUnit.MILLISECONDS);
+        try {
+            var build = mongoIndexBuildManager.submit(specifications);
+            return mongoIndexBuildManager.getCompletion(build.getId()).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Index build failed unexpectedly", e.getCause());
+        } finally {
+            renewal.cancel(false);
+        }
+    }
+
+    private void renewLease() {
+        try {
+            if (!lease.renew()) {
+                log.warn("Lost lease {} while building indexes, another instance may build them too", lease.getKey());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to renew lease {}: {}", lease.getKey(), e.getMessage());
+        }
+    }
+
+    /**
+     * Wait until the lease is released or expires.
+     * The change stream is opened before the lock document is read, so that a release in between isn't missed.
+     * The wait is cut short when the lease would expire, because an instance that stopped doesn't release it.
+     */
+    private void awaitRelease() throws InterruptedException {
+        if (changeStreamsSupported) {
+            try (var cursor = locks.watch(List.of(new Document("$match", new Document("documentKey._id", lease.getKey()))))
+                    .maxAwaitTime(MAX_AWAIT_TIME.toMillis(), TimeUnit.MILLISECONDS)
+                    .cursor()) {
+                awaitRelease(cursor);
+                return;
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() != CHANGE_STREAMS_NOT_SUPPORTED) throw e;
+
+                log.warn("Polling lease {}, because changes can't be watched: {}", lease.getKey(), e.getErrorMessage());
+                changeStreamsSupported = false;
+            }
+        }
+
+        pollUntilReleased();
+    }
+
+    private void awaitRelease(MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor) throws InterruptedException {
+        var remaining = lease.getRemaining();
+        while (!remaining.isZero()) {
+            var deadline = System.nanoTime() + remaining.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                if (cursor.tryNext() != null) break;
+            }
+            remaining = lease.getRemaining();
+        }
+    }
+
+    private void pollUntilReleased() throws InterruptedException {
+        var remaining = lease.getRemaining();
+        while (!remaining.isZero()) {
+            Thread.sleep(Math.min(pollInterval.toMillis(), remaining.toMillis()));
+            remaining = lease.getRemaining();
+        }
+    }
+
+    @Override
+    public void close() {
+        renewalExecutor.shutdownNow();
+        coordinationExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,13 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+/**
+ * Decides whether the cluster can take the load of building indexes.
+ * <p>
+ * {@link MongoIndexBuildManager} doesn't start builds while the cluster is unhealthy,
+ * and aborts builds that make it unhealthy, to restart them once it has recovered.
+ */
+@FunctionalInterface
+public interface MongoIndexBuildGuard {
+
+    MongoClusterHealth check();
+}
@@ -0,0 +1,109 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOptions;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A lock on building the indexes of a collection, held by one instance at a time for a limited duration.
+ * <p>
+ * The lock is a document in a shared collection.
+ * Expiry is computed with the clock of the server, using {@code $$NOW}, so that instances don't need synchronized clocks.
+ * An instance that stops without releasing the lock blocks others until the lease expires.
+ */
+class MongoIndexBuildLease {
+
+    private static final String OWNER = "owner";
+    private static final String EXPIRES_AT = "expiresAt";
+
+    private final MongoCollection<Document> locks;
+    private final String key;
+    private final String owner;
+    private final Duration duration;
+
+    MongoIndexBuildLease(MongoCollection<Document> locks, String key, String owner, Duration duration) {
+        this.locks = locks;
+        this.key = key;
+        this.owner = owner;
+        this.duration = duration;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * The lock document is created as released if it doesn't exist yet,
+     * so that acquiring it is a single conditional update, which the server applies atomically.
+     *
+     * @return whether this instance holds the lease, because it was free, had expired, or was already held by this instance
+     */
+    boolean tryAcquire() {
+        locks.updateOne(new Document("_id", key), List.of(new Document("$set", new Document()
+                        .append(OWNER, new Document("$ifNull", List.of("$" + OWNER, null)))
+                        .append(EXPIRES_AT, new Document("$ifNull", List.of("$" + EXPIRES_AT, "$$NOW"))))),
+                new UpdateOptions().upsert(true));
+
+        var isAvailable = new Document("$or", List.of(
+                new Document("$lte", List.of("$" + EXPIRES_AT, "$$NOW")),
+                new Document("$eq", List.of("$" + OWNER, owner))));
+        var result = locks.updateOne(new Document("_id", key).append("$expr", isAvailable),
+                List.of(new Document("$set", new Document(OWNER, owner)
+                        .append("acquiredAt", "$$NOW")
+                        .append(EXPIRES_AT, expiresFromNow()))));
+
+        return result.getModifiedCount() == 1;
+    }
+
+    /**
+     * @return whether this instance still held the lease, which is then extended by its full duration
+     */
+    boolean renew() {
+        var result = locks.updateOne(new Document("_id", key).append(OWNER, owner),
+                List.of(new Document("$set", new Document(EXPIRES_AT, expiresFromNow()))));
+
+        return result.getMatchedCount() == 1;
+    }
+
+    void release() {
+        locks.updateOne(new Document("_id", key).append(OWNER, owner),
+                List.of(new Document("$set", new Document(OWNER, null).append(EXPIRES_AT, "$$NOW"))));
+    }
+
+    /**
+     * @return how long the current holder keeps the lease unless it renews or releases it,
+     * which is zero if the lease is free
+     */
+    Duration getRemaining() {
+        var pipeline = List.of(
+                new Document("$match", new Document("_id", key)),
+                new Document("$project", new Document(OWNER, 1)
+                        .append("remainingMillis", new Document("$subtract", List.of("$" + EXPIRES_AT, "$$NOW")))));
+        var lock = locks.aggregate(pipeline).first();
+        if (lock == null || lock.get(OWNER) == null) return Duration.ZERO;
+
+        var remainingMillis = lock.get("remainingMillis", Number.class);
+        if (remainingMillis == null || remainingMillis.longValue() <= 0) return Duration.ZERO;
+
+        return Duration.ofMillis(remainingMillis.longValue());
+    }
+
+    /**
+     * @return the instance holding the lease, or {@code null} if it's free
+     */
+    String getHolder() {
+        var lock = locks.find(new Document("_id", key)).first();
+        return lock == null ? null : lock.getString(OWNER);
+    }
+
+    private Document expiresFromNow() {
+        return new Document("$add", List.of("$$NOW", duration.toMillis()));
+    }
+}
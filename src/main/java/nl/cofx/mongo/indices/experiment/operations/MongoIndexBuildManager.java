@@ -0,0 +1,394 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds indexes for a single collection without blocking the caller.
+ * <p>
+ * Submitted builds are queued and executed one at a time on a background thread.
+ * While a build is running, its progress is followed by polling {@code currentOp}.
+ * If an index is already being built on the server when it's submitted, for example because the application restarted
+ * while building it, the build is followed instead of being started again.
+ * <p>
+ * Optionally, a {@link MongoIndexBuildGuard} protects the cluster from the load of building indexes.
+ * Builds are only started while the guard considers the cluster healthy.
+ * If the cluster becomes unhealthy during a build, the build is aborted, paused, and restarted once the cluster has recovered.
+ */
+@Slf4j
+public class MongoIndexBuildManager implements AutoCloseable {
+
+    private static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(5);
+
+    private final String databaseName;
+    private final String collectionName;
+    private final MongoClient mongoClient;
+    private final MongoIndexOperations mongoIndexOperations;
+    private final Duration pollInterval;
+    private final MongoIndexBuildGuard guard;
+    private final Map<String, MongoIndexBuild> builds = new ConcurrentHashMap<>();
+    private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(daemonThreadFactory("index-build"));
+    private final ScheduledExecutorService pollExecutor = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("index-build-poll"));
+
+    public MongoIndexBuildManager(String databaseName, String collectionName, MongoClient mongoClient) {
+        this(databaseName, collectionName, mongoClient, DEFAULT_POLL_INTERVAL);
+    }
+
+    public MongoIndexBuildManager(String databaseName, String collectionName, MongoClient mongoClient,
+            Duration pollInterval) {
+        this(databaseName, collectionName, mongoClient, pollInterval, () -> MongoClusterHealth.HEALTHY);
+    }
+
+    public MongoIndexBuildManager(String databaseName, String collectionName, MongoClient mongoClient,
+            Duration pollInterval, MongoIndexBuildGuard guard) {
+        this.databaseName = databaseName;
+        this.collectionName = collectionName;
+        this.mongoClient = mongoClient;
+        this.mongoIndexOperations = new MongoIndexOperations(databaseName, collectionName, mongoClient);
+        this.pollInterval = pollInterval;
+        this.guard = guard;
+
+        var pollMillis = pollInterval.toMillis();
+        pollExecutor.scheduleWithFixedDelay(this::pollProgress, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        return runnable -> {
+            var thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Queue a build of the indexes matching the given specifications and return immediately.
+     */
+    public MongoIndexBuildStatus submit(List<MongoIndexSpecification> specifications) {
+        // If the builds in progress are unknown, the indexes are built again, which the server joins with a running build.
+        var inProgress = findIndexBuildOperations().orElse(List.of());
+        var pendingSpecifications = specifications.stream()
+                .filter(specification -> findOperation(specification, inProgress) == null)
+                .toList();
+
+        var build = new MongoIndexBuild(UUID.randomUUID().toString(), List.copyOf(specifications), pendingSpecifications);
+        builds.put(build.getStatus().getId(), build);
+
+        if (build.isAttachedOnly()) {
+            log.info("Attaching to index build already in progress for specifications {}", specifications);
+            build.start(getStartOfOperations(specifications, inProgress));
+            updateProgress(build, inProgress);
+        } else {
+            log.info("Queueing index build for specifications {}", pendingSpecifications);
+            buildExecutor.execute(() -> execute(build));
+        }
+
+        return build.getStatus();
+    }
+
+    public MongoIndexBuildStatus getStatus(String id) {
+        var build = builds.get(id);
+        return build == null ? null : build.getStatus();
+    }
+
+    public List<MongoIndexBuildStatus> getStatuses() {
+        return builds.values().stream()
+                .map(MongoIndexBuild::getStatus)
+                .toList();
+    }
+
+    /**
+     * @return a future that completes with the final status of the build, regardless of whether it succeeded
+     */
+    public CompletableFuture<MongoIndexBuildStatus> getCompletion(String id) {
+        var build = builds.get(id);
+        if (build == null) throw new IllegalArgumentException("Unknown index build: " + id);
+
+        return build.getCompletion();
+    }
+
+    private void execute(MongoIndexBuild build) {
+        try {
+            while (true) {
+                awaitHealthyCluster(build);
+                build.start(Instant.now());
+
+                List<MongoIndexCreationResult> results;
+                try {
+                    results = mongoIndexOperations.createIndexes(build.getPendingSpecifications());
+                } catch (MongoException e) {
+                    if (!build.isAbortRequested()) throw e;
+
+                    results = List.of();
+                }
+
+                if (build.isAbortRequested()) {
+                    build.pause();
+                    log.info("Paused index build {}", build.getStatus());
+                    continue;
+                }
+
+                var failures = results.stream()
+                        .filter(MongoIndexCreationResult::isFailure)
+                        .toList();
+                if (!failures.isEmpty()) {
+                    fail(build, "Failed to create indexes: " + failures);
+                    return;
+                }
+
+                while (isStillBuilding(build)) {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+
+                verifyCompletion(build);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(build, "Interrupted while waiting for index build");
+        } catch (RuntimeException e) {
+            log.warn("Index build {} failed", build.getStatus().getId(), e);
+            fail(build, e.getMessage());
+        }
+    }
+
+    /**
+     * A build is considered to be still running if the builds in progress can't be listed,
+     * because indexes that are being built aren't listed as indexes yet.
+     */
+    private boolean isStillBuilding(MongoIndexBuild build) {
+        return findIndexBuildOperations()
+                .map(inProgress -> findOperationFor(build, inProgress) != null)
+                .orElse(true);
+    }
+
+    private void awaitHealthyCluster(MongoIndexBuild build) throws InterruptedException {
+        var health = guard.check();
+        while (!health.isHealthy()) {
+            if (!health.getProblem().equals(build.getStatus().getWaitingFor())) {
+                log.info("Index build {} waits for cluster to recover: {}", build.getStatus().getId(), health.getProblem());
+            }
+            build.waitFor(health.getProblem());
+            Thread.sleep(pollInterval.toMillis());
+            health = guard.check();
+        }
+    }
+
+    private void verifyCompletion(MongoIndexBuild build) {
+        mongoIndexOperations.invalidateIndexCatalog();
+        var missingSpecifications = build.getSpecifications().stream()
+                .filter(specification -> mongoIndexOperations.findIndex(specification) == null)
+                .toList();
+        if (!missingSpecifications.isEmpty()) {
+            fail(build, "Index build finished without creating indexes for " + missingSpecifications);
+            return;
+        }
+
+        build.finish(Instant.now());
+        log.info("Finished index build {}", build.getStatus());
+    }
+
+    private void fail(MongoIndexBuild build, String failure) {
+        build.fail(failure, Instant.now());
+        log.warn("Index build failed: {}", build.getStatus());
+    }
+
+    private void pollProgress() {
+        try {
+            var building = builds.values().stream()
+                    .filter(build -> build.getStatus().getState() == MongoIndexBuildState.BUILDING)
+                    .toList();
+            if (building.isEmpty()) return;
+
+            // Without the builds in progress, followed builds that are still running would be considered finished.
+            var inProgress = findIndexBuildOperations().orElse(null);
+            if (inProgress == null) return;
+
+            for (var build : building) {
+                var operation = updateProgress(build, inProgress);
+                if (operation == null && build.isAttachedOnly()) {
+                    verifyCompletion(build);
+                }
+            }
+
+            guardBuilds(building);
+        } catch (RuntimeException e) {
+            log.warn("Failed to poll progress of index builds", e);
+        }
+    }
+
+    /**
+     * Abort the builds started by this manager if the cluster has become unhealthy.
+     * Builds that were only followed aren't aborted, because they weren't started by this manager.
+     * Only the indexes that the server is building for a build are dropped,
+     * so that indexes that already existed when the build was submitted are never dropped.
+     * A build that isn't running on the server yet is left alone until a later poll.
+     * The builds in progress are listed after checking the health of the cluster, which takes several round trips,
+     * so that an index whose build finished in the meantime isn't dropped.
+     */
+    private void guardBuilds(List<MongoIndexBuild> building) {
+        var guarded = building.stream()
+                .filter(build -> !build.isAttachedOnly())
+                .toList();
+        if (guarded.isEmpty()) return;
+
+        var health = guard.check();
+        if (health.isHealthy()) return;
+
+        var inProgress = findIndexBuildOperations().orElse(null);
+        if (inProgress == null) return;
+
+        for (var build : guarded) {
+            var indexNames = findIndexNamesBeingBuilt(build.getPendingSpecifications(), inProgress);
+            if (indexNames.isEmpty()) continue;
+            if (!build.requestAbort(health.getProblem())) continue;
+
+            log.warn("Aborting index build {}: {}", build.getStatus().getId(), health.getProblem());
+            try {
+                mongoIndexOperations.abortIndexBuild(indexNames);
+            } catch (MongoException e) {
+                log.warn("Failed to abort index build {}: {}", build.getStatus().getId(), e.getMessage());
+            }
+        }
+    }
+
+    private static List<String> findIndexNamesBeingBuilt(List<MongoIndexSpecification> specifications,
+            List<Document> operations) {
+        var names = new LinkedHashSet<String>();
+        for (var specification : specifications) {
+            for (var operation : operations) {
+                var index = findIndexBeingBuilt(specification, operation);
+                if (index != null) names.add(index.getString("name"));
+            }
+        }
+
+        return List.copyOf(names);
+    }
+
+    private Document updateProgress(MongoIndexBuild build, List<Document> inProgress) {
+        var operation = findOperationFor(build, inProgress);
+        if (operation == null) return null;
+
+        var progress = operation.get("progress", Document.class);
+        if (progress != null) {
+            build.updateProgress(getLong(progress, "done"), getLong(progress, "total"), Instant.now());
+        }
+
+        return operation;
+    }
+
+    private static long getLong(Document document, String key) {
+        var value = document.get(key, Number.class);
+        return value == null ? 0 : value.longValue();
+    }
+
+    private static Document findOperationFor(MongoIndexBuild build, List<Document> operations) {
+        for (var specification : build.getSpecifications()) {
+            var operation = findOperation(specification, operations);
+            if (operation != null) return operation;
+        }
+
+        return null;
+    }
+
+    /**
+     * Among the operations building indexes, find the one with progress information for the given specification.
+     * The server reports the same build as several operations, of which only some include progress.
+     */
+    private static Document findOperation(MongoIndexSpecification specification, List<Document> operations) {
+        Document match = null;
+        for (var operation : operations) {
+            if (!isBuilding(specification, operation)) continue;
+            if (match == null || operation.containsKey("progress")) match = operation;
+        }
+
+        return match;
+    }
+
+    private static boolean isBuilding(MongoIndexSpecification specification, Document operation) {
+        return findIndexBeingBuilt(specification, operation) != null;
+    }
+
+    /**
+     * @return the index matching the given specification among the indexes built by the given operation, if any
+     */
+    private static Document findIndexBeingBuilt(MongoIndexSpecification specification, Document operation) {
+        var indexes = operation.get("command", Document.class).getList("indexes", Document.class);
+        if (indexes == null) return null;
+
+        for (var index : indexes) {
+            if (specification.getName() != null && !specification.getName().equals(index.getString("name"))) continue;
+
+            var keyPattern = specification.getKeyPattern();
+            if (keyPattern == null || keyPattern.equals(MongoIndexKeyPattern.of(index.get("key", Document.class)))) {
+                return index;
+            }
+        }
+
+        return null;
+    }
+
+    private static Instant getStartOfOperations(Collection<MongoIndexSpecification> specifications,
+            List<Document> operations) {
+        var now = Instant.now();
+        var start = now;
+        for (var specification : specifications) {
+            var operation = findOperation(specification, operations);
+            if (operation == null) continue;
+
+            var secondsRunning = operation.get("secs_running", Number.class);
+            if (secondsRunning == null) continue;
+
+            var operationStart = now.minusSeconds(secondsRunning.longValue());
+            if (operationStart.isBefore(start)) start = operationStart;
+        }
+
+        return start;
+    }
+
+    /**
+     * @return the operations building indexes for the collection, or nothing if they can't be listed
+     */
+    private Optional<List<Document>> findIndexBuildOperations() {
+        var command = new Document("currentOp", true)
+                .append("command.createIndexes", collectionName);
+        try {
+            var operations = mongoClient.getDatabase("admin").runCommand(command).getList("inprog", Document.class);
+            var namespacePrefix = databaseName + ".";
+            var result = new ArrayList<Document>();
+            for (var operation : operations) {
+                var namespace = operation.getString("ns");
+                if (namespace != null && namespace.startsWith(namespacePrefix)) result.add(operation);
+            }
+
+            return Optional.of(result);
+        } catch (MongoException e) {
+            log.warn("Unable to list index builds in progress: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void close() {
+        pollExecutor.shutdownNow();
+        buildExecutor.shutdownNow();
+    }
+}
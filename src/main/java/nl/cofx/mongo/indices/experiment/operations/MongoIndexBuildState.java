@@ -0,0 +1,12 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+public enum MongoIndexBuildState {
+    QUEUED,
+    BUILDING,
+    /**
+     * The build was aborted because the cluster became unhealthy, and is restarted once the cluster has recovered.
+     */
+    PAUSED,
+    DONE,
+    FAILED
+}
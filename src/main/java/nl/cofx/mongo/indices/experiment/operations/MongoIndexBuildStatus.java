@@ -0,0 +1,48 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Builder(toBuilder = true)
+@Value
+public class MongoIndexBuildStatus {
+
+    String id;
+    List<MongoIndexSpecification> specifications;
+    MongoIndexBuildState state;
+
+    /**
+     * Whether this build was already running on the server when it was submitted,
+     * in which case it was followed instead of being started again.
+     */
+    boolean attached;
+
+    /**
+     * Number of documents or keys processed in the current phase of the build, as reported by {@code currentOp}.
+     */
+    long done;
+
+    /**
+     * Total number of documents or keys to process in the current phase of the build, as reported by {@code currentOp}.
+     */
+    long total;
+
+    /**
+     * Why the build is waiting for the cluster to recover before it starts or restarts, if it is.
+     */
+    String waitingFor;
+
+    /**
+     * Number of times the build was aborted and restarted because the cluster became unhealthy.
+     */
+    int restarts;
+
+    Instant startedAt;
+    Instant finishedAt;
+    Duration estimatedTimeRemaining;
+    String failure;
+}
@@ -0,0 +1,107 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * In-process view of the indexes of a single collection.
+ * <p>
+ * The indexes are loaded when they're first needed and are reloaded once the time to live has passed
+ * or the catalog has been invalidated.
+ * Lookups by name or by key pattern don't require a round trip to the server while the catalog is fresh.
+ */
+@Slf4j
+class MongoIndexCatalog {
+
+    private final Supplier<List<Document>> indexLoader;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    private volatile Snapshot snapshot;
+
+    MongoIndexCatalog(Supplier<List<Document>> indexLoader, Duration timeToLive) {
+        this(indexLoader, timeToLive, Clock.systemUTC());
+    }
+
+    MongoIndexCatalog(Supplier<List<Document>> indexLoader, Duration timeToLive, Clock clock) {
+        this.indexLoader = indexLoader;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    List<Entry> getIndexes() {
+        return getSnapshot().indexes();
+    }
+
+    Entry findByName(String name) {
+        return getSnapshot().indexesByName().get(name);
+    }
+
+    List<Entry> findByKeyPattern(MongoIndexKeyPattern keyPattern) {
+        return getSnapshot().indexesByKeyPattern().getOrDefault(keyPattern, List.of());
+    }
+
+    /**
+     * Loads hold the same lock, so a load that's in progress finishes before its result is discarded.
+     */
+    synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot getSnapshot() {
+        var current = snapshot;
+        if (current != null && !isExpired(current)) return current;
+
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && !isExpired(current)) return current;
+
+            current = load();
+            snapshot = current;
+
+            return current;
+        }
+    }
+
+    private boolean isExpired(Snapshot snapshot) {
+        return !clock.instant().isBefore(snapshot.loadedAt().plus(timeToLive));
+    }
+
+    private Snapshot load() {
+        var loadedAt = clock.instant();
+        var indexes = indexLoader.get().stream()
+                .map(index -> new Entry(index, MongoIndexKeyPattern.of(index.get("key", Document.class))))
+                .toList();
+        log.debug("Loaded {} indexes into catalog", indexes.size());
+
+        var indexesByName = new HashMap<String, Entry>();
+        var indexesByKeyPattern = new HashMap<MongoIndexKeyPattern, List<Entry>>();
+        for (var entry : indexes) {
+            indexesByName.put(entry.index().getString("name"), entry);
+            indexesByKeyPattern.computeIfAbsent(entry.keyPattern(), keyPattern -> new ArrayList<>()).add(entry);
+        }
+
+        return new Snapshot(indexes, indexesByName, indexesByKeyPattern, loadedAt);
+    }
+
+    /**
+     * An index as listed by the server, together with its parsed key pattern.
+     */
+    record Entry(Document index, MongoIndexKeyPattern keyPattern) {
+    }
+
+    private record Snapshot(List<Entry> indexes,
+                            Map<String, Entry> indexesByName,
+                            Map<MongoIndexKeyPattern, List<Entry>> indexesByKeyPattern,
+                            Instant loadedAt) {
+    }
+}
@@ -0,0 +1,22 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+@Value
+public class MongoIndexCreationResult {
+
+    MongoIndexSpecification specification;
+    Status status;
+    String message;
+
+    public boolean isFailure() {
+        return status == Status.EXISTS_WITH_DIFFERENT_NAME || status == Status.NAME_ALREADY_IN_USE;
+    }
+
+    public enum Status {
+        CREATED,
+        ALREADY_EXISTS,
+        EXISTS_WITH_DIFFERENT_NAME,
+        NAME_ALREADY_IN_USE
+    }
+}
@@ -0,0 +1,268 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationAlternate;
+import com.mongodb.client.model.CollationCaseFirst;
+import com.mongodb.client.model.CollationMaxVariable;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.IndexOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions between {@link MongoIndexSpecification} and the documents describing indexes,
+ * shared by the blocking and reactive index operations.
+ */
+@Slf4j
+final class MongoIndexDocuments {
+
+    private static final int INDEX_NOT_FOUND = 27;
+    private static final int INDEX_OPTIONS_CONFLICT = 85;
+    private static final int INDEX_KEY_SPECS_CONFLICT = 86;
+
+    private MongoIndexDocuments() {
+    }
+
+    static boolean isIndexNotFound(MongoCommandException e) {
+        return e.getErrorCode() == INDEX_NOT_FOUND;
+    }
+
+    static boolean isIndexConflict(MongoCommandException e) {
+        var errorCode = e.getErrorCode();
+        return errorCode == INDEX_OPTIONS_CONFLICT || errorCode == INDEX_KEY_SPECS_CONFLICT;
+    }
+
+    static RuntimeException translateException(MongoCommandException e) {
+        var errorCode = e.getErrorCode();
+        var message = e.getMessage();
+        if (errorCode == INDEX_OPTIONS_CONFLICT) {
+            log.warn("Index already exists with a different name: {}", message);
+            return new IndexExistsWithDifferentName(message);
+        } else if (errorCode == INDEX_KEY_SPECS_CONFLICT) {
+            log.warn("Index with requested name already exists: {}", message);
+            return new ExistingIndexHasSameName(message);
+        } else {
+            return e;
+        }
+    }
+
+    static IndexOptions getIndexOptions(MongoIndexSpecification specification) {
+        var indexOptions = new IndexOptions()
+                .name(specification.getName())
+                .unique(specification.isUnique())
+                .sparse(specification.isSparse())
+                .partialFilterExpression(parse(specification.getPartialFilterExpression()))
+                .wildcardProjection(parse(specification.getWildcardProjection()))
+                .collation(toCollation(parse(specification.getCollation())));
+        if (specification.getExpireAfterSeconds() != null) {
+            indexOptions.expireAfter(specification.getExpireAfterSeconds(), TimeUnit.SECONDS);
+        }
+        if (specification.isHidden()) {
+            indexOptions.hidden(true);
+        }
+
+        return indexOptions;
+    }
+
+    private static Document parse(String json) {
+        return json == null ? null : Document.parse(json);
+    }
+
+    private static Collation toCollation(Document collation) {
+        if (collation == null) return null;
+
+        var builder = Collation.builder().locale(collation.getString("locale"));
+        if (collation.containsKey("caseLevel")) builder.caseLevel(collation.getBoolean("caseLevel"));
+        if (collation.containsKey("caseFirst")) builder.collationCaseFirst(CollationCaseFirst.fromString(collation.getString("caseFirst")));
+        if (collation.containsKey("strength")) builder.collationStrength(CollationStrength.fromInt(collation.get("strength", Number.class).intValue()));
+        if (collation.containsKey("numericOrdering")) builder.numericOrdering(collation.getBoolean("numericOrdering"));
+        if (collation.containsKey("alternate")) builder.collationAlternate(CollationAlternate.fromString(collation.getString("alternate")));
+        if (collation.containsKey("maxVariable")) builder.collationMaxVariable(CollationMaxVariable.fromString(collation.getString("maxVariable")));
+        if (collation.containsKey("normalization")) builder.normalization(collation.getBoolean("normalization"));
+        if (collation.containsKey("backwards")) builder.backwards(collation.getBoolean("backwards"));
+
+        return builder.build();
+    }
+
+    /**
+     * @return the name of the index created for the given specification, which is generated if it isn't specified
+     */
+    static String getIndexName(MongoIndexSpecification specification) {
+        if (specification.getName() != null) return specification.getName();
+
+        return Objects.requireNonNull(specification.getKeyPattern()).getDefaultIndexName();
+    }
+
+    static Document getKeys(MongoIndexSpecification specification) {
+        var definition = specification.getDefinition();
+        if (definition == null) return null;
+
+        return Document.parse(definition);
+    }
+
+    /**
+     * An index matches a specification if it has every property that the specification sets,
+     * which makes specifications usable as filters.
+     * For example, a specification with only a name matches the index with that name, whatever its keys and options.
+     *
+     * @param indexKeyPattern the key pattern of the given index, which callers may have parsed before
+     */
+    static boolean indexMatchesSpecification(MongoIndexSpecification specification, Document index,
+            MongoIndexKeyPattern indexKeyPattern) {
+        if (specification.getName() != null && !specification.getName().equals(getName(index))) return false;
+
+        if (specification.isUnique() && !isUnique(index)) return false;
+        if (specification.isSparse() && !isSparse(index)) return false;
+        if (specification.isHidden() && !isHidden(index)) return false;
+        if (specification.getExpireAfterSeconds() != null
+                && !specification.getExpireAfterSeconds().equals(getExpireAfterSeconds(index))) return false;
+        if (specification.getPartialFilterExpression() != null
+                && !parse(specification.getPartialFilterExpression()).equals(getPartialFilterExpression(index))) return false;
+        if (specification.getCollation() != null && !collationMatches(specification, index)) return false;
+        if (specification.getWildcardProjection() != null && !wildcardProjectionMatches(specification, index)) return false;
+
+        var keyPattern = specification.getKeyPattern();
+        if (keyPattern == null) return true;
+
+        return keyPattern.equals(indexKeyPattern);
+    }
+
+    /**
+     * In contrast to {@link #indexMatchesSpecification}, which only checks the properties that the specification sets,
+     * an index is only equivalent to a specification if it would behave the same as an index created from it.
+     * Names are not taken into account, and neither is whether the index is hidden,
+     * because that only affects whether queries use the index, which can be changed without rebuilding it.
+     */
+    static boolean indexIsEquivalentToSpecification(MongoIndexSpecification specification, Document index,
+            MongoIndexKeyPattern indexKeyPattern) {
+        return specification.isUnique() == isUnique(index)
+                && specification.isSparse() == isSparse(index)
+                && Objects.equals(specification.getExpireAfterSeconds(), getExpireAfterSeconds(index))
+                && Objects.equals(parse(specification.getPartialFilterExpression()), getPartialFilterExpression(index))
+                && collationMatches(specification, index)
+                && wildcardProjectionMatches(specification, index)
+                && Objects.equals(specification.getKeyPattern(), indexKeyPattern);
+    }
+
+    /**
+     * The server only allows several indexes with the same keys if they differ in which documents or fields they hold,
+     * or in how they compare strings.
+     * Differences in other options, such as uniqueness, make it reject the second index.
+     */
+    static boolean canCoexistWithSpecification(MongoIndexSpecification specification, Document index) {
+        return !Objects.equals(parse(specification.getPartialFilterExpression()), getPartialFilterExpression(index))
+                || !collationMatches(specification, index)
+                || !wildcardProjectionMatches(specification, index);
+    }
+
+    /**
+     * Compare the fields of the collation that the specification sets.
+     * Indexes with the simple binary collation, which is the default, are listed without collation.
+     */
+    private static boolean collationMatches(MongoIndexSpecification specification, Document index) {
+        var collation = parse(specification.getCollation());
+        var indexCollation = getCollation(index);
+        if (collation == null || "simple".equals(collation.getString("locale"))) {
+            return indexCollation == null || "simple".equals(indexCollation.getString("locale"));
+        }
+        if (indexCollation == null) return false;
+
+        for (var entry : collation.entrySet()) {
+            if (!valuesAreEqual(entry.getValue(), indexCollation.get(entry.getKey()))) return false;
+        }
+
+        return true;
+    }
+
+    private static boolean wildcardProjectionMatches(MongoIndexSpecification specification, Document index) {
+        var wildcardProjection = parse(specification.getWildcardProjection());
+        var indexWildcardProjection = getWildcardProjection(index);
+        if (wildcardProjection == null || indexWildcardProjection == null) {
+            return wildcardProjection == indexWildcardProjection;
+        }
+        if (wildcardProjection.size() != indexWildcardProjection.size()) return false;
+
+        for (var entry : wildcardProjection.entrySet()) {
+            if (!valuesAreEqual(entry.getValue(), indexWildcardProjection.get(entry.getKey()))) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Compare values the way MongoDB does for options, where {@code 1}, {@code 1.0}, and {@code true} are the same.
+     */
+    private static boolean valuesAreEqual(Object value, Object other) {
+        if (value instanceof Number || value instanceof Boolean) {
+            return other != null && Objects.equals(toTruthValueOrNumber(value), toTruthValueOrNumber(other));
+        }
+
+        return Objects.equals(value, other);
+    }
+
+    private static Object toTruthValueOrNumber(Object value) {
+        if (value instanceof Boolean bool) return bool ? 1.0 : 0.0;
+        if (value instanceof Number number) return number.doubleValue();
+
+        return value;
+    }
+
+    static MongoIndexSpecification toSpecification(Document index) {
+        return MongoIndexSpecification.builder()
+                .name(getName(index))
+                .definition(getKeys(index).toJson())
+                .unique(isUnique(index))
+                .sparse(isSparse(index))
+                .partialFilterExpression(toJson(getPartialFilterExpression(index)))
+                .expireAfterSeconds(getExpireAfterSeconds(index))
+                .collation(toJson(getCollation(index)))
+                .wildcardProjection(toJson(getWildcardProjection(index)))
+                .hidden(isHidden(index))
+                .build();
+    }
+
+    private static String toJson(Document document) {
+        return document == null ? null : document.toJson();
+    }
+
+    static Document getKeys(Document index) {
+        return index.get("key", Document.class);
+    }
+
+    static boolean isUnique(Document index) {
+        return Boolean.TRUE.equals(index.get("unique"));
+    }
+
+    static boolean isSparse(Document index) {
+        return Boolean.TRUE.equals(index.get("sparse"));
+    }
+
+    static boolean isHidden(Document index) {
+        return Boolean.TRUE.equals(index.get("hidden"));
+    }
+
+    static Long getExpireAfterSeconds(Document index) {
+        var expireAfterSeconds = index.get("expireAfterSeconds", Number.class);
+        return expireAfterSeconds == null ? null : expireAfterSeconds.longValue();
+    }
+
+    static Document getPartialFilterExpression(Document index) {
+        return index.get("partialFilterExpression", Document.class);
+    }
+
+    static Document getCollation(Document index) {
+        return index.get("collation", Document.class);
+    }
+
+    static Document getWildcardProjection(Document index) {
+        return index.get("wildcardProjection", Document.class);
+    }
+
+    static String getName(Document index) {
+        return index.getString("name");
+    }
+}
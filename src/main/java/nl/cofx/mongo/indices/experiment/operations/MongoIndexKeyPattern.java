@@ -0,0 +1,132 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import org.bson.Document;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Parsed, canonical form of the keys of an index.
+ * <p>
+ * Fields keep the order in which they are defined.
+ * Numeric directions are normalized, so that {@code 1}, {@code 1L}, and {@code 1.0} are considered equal,
+ * and index types such as {@code "hashed"} or {@code "text"} are kept as is.
+ * Instances are immutable and compare their fields and directions without allocating.
+ */
+public final class MongoIndexKeyPattern {
+
+    private final String[] fields;
+    private final String[] directions;
+    private final int hash;
+
+    private MongoIndexKeyPattern(String[] fields, String[] directions) {
+        this.fields = fields;
+        this.directions = directions;
+        this.hash = 31 * Arrays.hashCode(fields) + Arrays.hashCode(directions);
+    }
+
+    public static MongoIndexKeyPattern parse(String definition) {
+        return of(Document.parse(definition));
+    }
+
+    public static MongoIndexKeyPattern of(Document keys) {
+        var fields = new String[keys.size()];
+        var directions = new String[keys.size()];
+        var i = 0;
+        for (var entry : keys.entrySet()) {
+            fields[i] = entry.getKey();
+            directions[i] = normalizeDirection(entry.getValue());
+            ++i;
+        }
+
+        return new MongoIndexKeyPattern(fields, directions);
+    }
+
+    private static String normalizeDirection(Object direction) {
+        if (direction instanceof Number number) {
+            try {
+                return new BigDecimal(number.toString()).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return number.toString();
+            }
+        }
+
+        return String.valueOf(direction);
+    }
+
+    public int size() {
+        return fields.length;
+    }
+
+    public String getField(int index) {
+        return fields[index];
+    }
+
+    public String getDirection(int index) {
+        return directions[index];
+    }
+
+    /**
+     * @return whether this key pattern has fewer fields than the other, which start with the fields of this key pattern
+     */
+    public boolean isStrictPrefixOf(MongoIndexKeyPattern other) {
+        if (fields.length >= other.fields.length) return false;
+
+        for (var i = 0; i < fields.length; ++i) {
+            if (!fields[i].equals(other.fields[i]) || !directions[i].equals(other.directions[i])) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return whether every field is indexed in ascending or descending order,
+     * as opposed to indexes of a special type, such as hashed, text, or wildcard indexes
+     */
+    public boolean isAscendingOrDescending() {
+        for (var i = 0; i < fields.length; ++i) {
+            if (!directions[i].equals("1") && !directions[i].equals("-1")) return false;
+            if (fields[i].endsWith("$**")) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the name that MongoDB gives an index with this key pattern if no name is specified,
+     * such as {@code first_1_second_-1}
+     */
+    public String getDefaultIndexName() {
+        var builder = new StringBuilder();
+        for (var i = 0; i < fields.length; ++i) {
+            if (i > 0) builder.append('_');
+            builder.append(fields[i]).append('_').append(directions[i]);
+        }
+
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MongoIndexKeyPattern other)) return false;
+
+        return hash == other.hash && Arrays.equals(fields, other.fields) && Arrays.equals(directions, other.directions);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        var builder = new StringBuilder("{ ");
+        for (var i = 0; i < fields.length; ++i) {
+            if (i > 0) builder.append(", ");
+            builder.append(fields[i]).append(": ").append(directions[i]);
+        }
+
+        return builder.append(" }").toString();
+    }
+}
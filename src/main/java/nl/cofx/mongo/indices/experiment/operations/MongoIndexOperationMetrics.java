@@ -0,0 +1,94 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Times index operations with the timer {@value #TIMER_NAME},
+ * tagged by collection, index name, operation, and the exception that was thrown, if any.
+ * Operations on several indexes at once are tagged with the index name {@value #BATCH_INDEX},
+ * so that the number of timers doesn't grow with every combination of indexes.
+ * <p>
+ * The timers publish a percentile histogram, so that monitoring systems can aggregate percentiles across instances,
+ * as well as the 50th, 95th, and 99th percentile computed in the application.
+ */
+class MongoIndexOperationMetrics {
+
+    static final String TIMER_NAME = "mongo.index.operations";
+    static final String BATCH_INDEX = "batch";
+    private static final String NO_EXCEPTION = "none";
+    private static final String UNKNOWN_INDEX = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final String collectionName;
+
+    MongoIndexOperationMetrics(MeterRegistry meterRegistry, String collectionName) {
+        this.meterRegistry = meterRegistry;
+        this.collectionName = collectionName;
+    }
+
+    void record(String operation, MongoIndexSpecification specification, Runnable action) {
+        record(operation, specification, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    <T> T record(String operation, MongoIndexSpecification specification, Supplier<T> action) {
+        return record(operation, getIndexName(specification), action);
+    }
+
+    <T> T recordBatch(String operation, Supplier<T> action) {
+        return record(operation, BATCH_INDEX, action);
+    }
+
+    private <T> T record(String operation, String indexName, Supplier<T> action) {
+        var sample = Timer.start(meterRegistry);
+        var exception = NO_EXCEPTION;
+        try {
+            return action.get();
+        } catch (RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(getTimer(operation, indexName, exception));
+        }
+    }
+
+    /**
+     * Time the given publisher from the moment it's subscribed to until it completes or fails.
+     */
+    <T> Mono<T> record(String operation, MongoIndexSpecification specification, Mono<T> action) {
+        var indexName = getIndexName(specification);
+        return Mono.defer(() -> {
+            var sample = Timer.start(meterRegistry);
+            return action
+                    .doOnSuccess(ignored -> sample.stop(getTimer(operation, indexName, NO_EXCEPTION)))
+                    .doOnError(e -> sample.stop(getTimer(operation, indexName, e.getClass().getSimpleName())));
+        });
+    }
+
+    private Timer getTimer(String operation, String indexName, String exception) {
+        return Timer.builder(TIMER_NAME)
+                .description("Time taken by operations on indexes")
+                .tag("collection", collectionName)
+                .tag("index", indexName)
+                .tag("operation", operation)
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Specifications that only filter by options, such as {@code unique}, don't identify a single index.
+     */
+    private static String getIndexName(MongoIndexSpecification specification) {
+        if (specification.getName() == null && specification.getKeyPattern() == null) return UNKNOWN_INDEX;
+
+        return MongoIndexDocuments.getIndexName(specification);
+    }
+}
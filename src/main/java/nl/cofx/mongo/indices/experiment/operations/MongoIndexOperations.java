@@ -3,151 +3,457 @@ package nl.cofx.mongo.indices.experiment.operations;
 import com.mongodb.MongoCommandException;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
-import com.mongodb.client.model.IndexOptions;
-import lombok.RequiredArgsConstructor;
+import com.mongodb.client.model.IndexModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
-import java.util.Set;
 
-@RequiredArgsConstructor
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexCreationResult.Status.ALREADY_EXISTS;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexCreationResult.Status.CREATED;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexCreationResult.Status.EXISTS_WITH_DIFFERENT_NAME;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexCreationResult.Status.NAME_ALREADY_IN_USE;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.CHANGE_VISIBILITY;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.CREATE;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.DROP;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.KEEP;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.KEEP_EQUIVALENT;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.REPLACE;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.canCoexistWithSpecification;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.getIndexName;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.getIndexOptions;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.getKeys;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.getName;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.indexIsEquivalentToSpecification;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.isIndexConflict;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.isIndexNotFound;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.toSpecification;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.translateException;
+
 @Slf4j
 public class MongoIndexOperations {
 
+    private static final Duration DEFAULT_CATALOG_TIME_TO_LIVE = Duration.ofSeconds(30);
+    private static final String ID_INDEX_NAME = "_id_";
+
     private final String databaseName;
     private final String collectionName;
     private final MongoClient mongoClient;
+    private final MongoIndexCatalog catalog;
+    private final MongoIndexOperationMetrics metrics;
+
+    public MongoIndexOperations(String databaseName, String collectionName, MongoClient mongoClient) {
+        this(databaseName, collectionName, mongoClient, DEFAULT_CATALOG_TIME_TO_LIVE);
+    }
+
+    /**
+     * @param catalogTimeToLive how long the indexes listed for the collection are reused before they are listed again.
+     *                          Indexes created or deleted through this instance are always visible immediately.
+     */
+    public MongoIndexOperations(String databaseName, String collectionName, MongoClient mongoClient,
+            Duration catalogTimeToLive) {
+        this(databaseName, collectionName, mongoClient, catalogTimeToLive, Metrics.globalRegistry);
+    }
+
+    /**
+     * @param meterRegistry registry of the timers of {@link #createIndex}, {@link #createIndexes}, {@link #findIndex},
+     *                      and {@link #deleteIndex}, which is the global registry by default
+     */
+    public MongoIndexOperations(String databaseName, String collectionName, MongoClient mongoClient,
+            Duration catalogTimeToLive, MeterRegistry meterRegistry) {
+        this.databaseName = databaseName;
+        this.collectionName = collectionName;
+        this.mongoClient = mongoClient;
+        this.catalog = new MongoIndexCatalog(() -> getCollection().listIndexes().into(new ArrayList<>()),
+                catalogTimeToLive);
+        this.metrics = new MongoIndexOperationMetrics(meterRegistry, collectionName);
+    }
 
     public void createIndex(MongoIndexSpecification specification) {
-        log.info("Creating index with specification {}", specification);
-        try {
-            getCollection().createIndex(Objects.requireNonNull(getKeys(specification)), getIndexOptions(specification));
-            log.info("Created index");
-        } catch (MongoCommandException e) {
-            var errorCode = e.getErrorCode();
-            var message = e.getMessage();
-            if (errorCode == 85) {
-                log.warn("Index already exists with a different name: {}", message);
-                throw new IndexExistsWithDifferentName(message);
-            } else if (errorCode == 86) {
-                log.warn("Index with requested name already exists: {}", message);
-                throw new ExistingIndexHasSameName(message);
+        metrics.record("createIndex", specification, () -> {
+            log.info("Creating index with specification {}", specification);
+            try {
+                getCollection().createIndex(Objects.requireNonNull(getKeys(specification)), getIndexOptions(specification));
+                log.info("Created index");
+            } catch (MongoCommandException e) {
+                throw translateException(e);
+            } finally {
+                catalog.invalidate();
+            }
+        });
+    }
+
+    /**
+     * Create the indexes matching the given specifications that don't exist yet.
+     * <p>
+     * All missing indexes are sent in a single {@code createIndexes} command,
+     * which lets the server build them during one scan of the collection.
+     * If the server rejects that command because of a conflicting name or definition,
+     * the missing indexes are created one by one to determine the result for each of them.
+     *
+     * @return one result per specification, in the order of the given specifications
+     */
+    public List<MongoIndexCreationResult> createIndexes(List<MongoIndexSpecification> specifications) {
+        return metrics.recordBatch("createIndexes", () -> createMissingIndexes(specifications));
+    }
+
+    private List<MongoIndexCreationResult> createMissingIndexes(List<MongoIndexSpecification> specifications) {
+        log.info("Creating indexes with specifications {}", specifications);
+
+        var existingIndexes = catalog.getIndexes();
+        var results = new HashMap<MongoIndexSpecification, MongoIndexCreationResult>();
+        var missingSpecifications = new LinkedHashSet<MongoIndexSpecification>();
+        for (var specification : specifications) {
+            if (existingIndexes.stream().anyMatch(entry -> isExistingIndexFor(specification, entry))) {
+                results.put(specification, new MongoIndexCreationResult(specification, ALREADY_EXISTS, null));
             } else {
-                throw e;
+                missingSpecifications.add(specification);
+            }
+        }
+
+        if (!missingSpecifications.isEmpty()) {
+            try {
+                getCollection().createIndexes(missingSpecifications.stream()
+                        .map(MongoIndexOperations::toIndexModel)
+                        .toList());
+                catalog.invalidate();
+                log.info("Created {} indexes", missingSpecifications.size());
+                missingSpecifications.forEach(specification ->
+                        results.put(specification, new MongoIndexCreationResult(specification, CREATED, null)));
+            } catch (MongoCommandException e) {
+                catalog.invalidate();
+                if (!isIndexConflict(e)) throw e;
+
+                log.warn("Creating indexes in a single command failed, creating them one by one: {}", e.getMessage());
+                missingSpecifications.forEach(specification ->
+                        results.put(specification, createIndexReportingResult(specification)));
             }
         }
+
+        return specifications.stream()
+                .map(results::get)
+                .toList();
+    }
+
+    private MongoIndexCreationResult createIndexReportingResult(MongoIndexSpecification specification) {
+        try {
+            createIndex(specification);
+            return new MongoIndexCreationResult(specification, CREATED, null);
+        } catch (IndexExistsWithDifferentName e) {
+            return new MongoIndexCreationResult(specification, EXISTS_WITH_DIFFERENT_NAME, e.getMessage());
+        } catch (ExistingIndexHasSameName e) {
+            return new MongoIndexCreationResult(specification, NAME_ALREADY_IN_USE, e.getMessage());
+        }
     }
 
     /**
-     * If an index that matches the given specification already exists,
+     * If an index that is equivalent to the given specification already exists,
      * regardless of its name, do nothing.
      * <p>
      * Otherwise, create the index matching the specification.
      */
     public void createIndexWithPreferredName(MongoIndexSpecification specification) {
-        var specificationWithoutName = specification.toBuilder()
-                .name(null)
-                .build();
-
-        var existingIndex = findIndex(specificationWithoutName);
+        var keyPattern = Objects.requireNonNull(specification.getKeyPattern());
+        var existingIndex = catalog.findByKeyPattern(keyPattern).stream()
+                .filter(entry -> isEquivalent(specification, entry))
+                .findFirst()
+                .orElse(null);
         if (existingIndex != null) {
-            log.info("Index matching specification already exists: {}", existingIndex);
+            log.info("Index equivalent to specification already exists: {}", existingIndex.index());
             return;
         }
 
         createIndex(specification);
     }
 
-    private static IndexOptions getIndexOptions(MongoIndexSpecification specification) {
-        return new IndexOptions()
-                .name(specification.getName())
-                .unique(specification.isUnique());
-    }
+    /**
+     * An existing index makes creating an index for the given specification unnecessary
+     * if it has the specified name, if any, and would behave the same.
+     * Merely matching isn't enough, because, for example, a partial index matches a specification without filter.
+     */
+    private static boolean isExistingIndexFor(MongoIndexSpecification specification, MongoIndexCatalog.Entry entry) {
+        if (specification.getName() != null && !specification.getName().equals(getName(entry.index()))) return false;
 
-    private static Document getKeys(MongoIndexSpecification specification) {
-        var definition = specification.getDefinition();
-        if (definition == null) return null;
+        return isEquivalent(specification, entry);
+    }
 
-        return Document.parse(definition);
+    private static IndexModel toIndexModel(MongoIndexSpecification specification) {
+        return new IndexModel(Objects.requireNonNull(getKeys(specification)), getIndexOptions(specification));
     }
 
-    private MongoCollection<Document> getCollection() {
+    MongoCollection<Document> getCollection() {
         return mongoClient.getDatabase(databaseName).getCollection(collectionName);
     }
 
+    /**
+     * Abort the build of the indexes with the given names, which must all be part of the same build.
+     * Dropping indexes that are still being built aborts their build.
+     * Only pass the names of indexes that are being built, because finished indexes would be dropped as well.
+     */
+    public void abortIndexBuild(List<String> indexNames) {
+        log.info("Aborting build of indexes {}", indexNames);
+        try {
+            mongoClient.getDatabase(databaseName)
+                    .runCommand(new Document("dropIndexes", collectionName).append("index", indexNames));
+        } finally {
+            catalog.invalidate();
+        }
+    }
+
+    /**
+     * Forget the indexes listed for the collection, so that changes made without this instance become visible.
+     */
+    public void invalidateIndexCatalog() {
+        catalog.invalidate();
+    }
+
     public void deleteIndex(MongoIndexSpecification specification) {
-        log.info("Deleting index with specification {}", specification);
-
-        var collection = getCollection();
-        var indexes = collection.listIndexes();
-        for (var index : indexes) {
-            if (indexMatchesSpecification(specification, index)) {
-                collection.dropIndex(getName(index));
-                log.info("Deleted index {}", index);
+        metrics.record("deleteIndex", specification, () -> {
+            log.info("Deleting index with specification {}", specification);
+
+            var entry = findMatchingIndex(specification);
+            if (entry == null) {
+                log.info("No index found matching specification {}", specification);
                 return;
             }
-        }
 
-        log.info("No index found matching specification {}", specification);
+            // The catalog may still list an index that another client has dropped in the meantime.
+            try {
+                getCollection().dropIndex(getName(entry.index()));
+                log.info("Deleted index {}", entry.index());
+            } catch (MongoCommandException e) {
+                if (!isIndexNotFound(e)) throw e;
+
+                log.info("No index found matching specification {}", specification);
+            } finally {
+                catalog.invalidate();
+            }
+        });
     }
 
-    private boolean indexMatchesSpecification(MongoIndexSpecification specification, Document index) {
-        if (specification.getName() != null && !specification.getName().equals(getName(index))) return false;
+    /**
+     * Hide the index matching the given specification from the query planner.
+     * The index is still maintained, so it can be unhidden without rebuilding it.
+     *
+     * @return whether a matching index was found
+     */
+    public boolean hideIndex(MongoIndexSpecification specification) {
+        return setHidden(specification, true);
+    }
 
-        if (specification.isUnique() && !isUnique(index)) return false;
+    /**
+     * Make the index matching the given specification available to the query planner again.
+     *
+     * @return whether a matching index was found
+     */
+    public boolean unhideIndex(MongoIndexSpecification specification) {
+        return setHidden(specification, false);
+    }
+
+    private boolean setHidden(MongoIndexSpecification specification, boolean hidden) {
+        var entry = findMatchingIndex(specification);
+        if (entry == null) {
+            log.info("No index found matching specification {}", specification);
+            return false;
+        }
+
+        var name = getName(entry.index());
+        try {
+            mongoClient.getDatabase(databaseName).runCommand(new Document("collMod", collectionName)
+                    .append("index", new Document("name", name).append("hidden", hidden)));
+            log.info("{} index {}", hidden ? "Hid" : "Unhid", name);
+        } finally {
+            catalog.invalidate();
+        }
 
-        var keys = getKeys(specification);
-        if (keys == null) return true;
+        return true;
+    }
+
+    private MongoIndexCatalog.Entry findMatchingIndex(MongoIndexSpecification specification) {
+        for (var entry : getCandidateIndexes(specification)) {
+            if (indexMatchesSpecification(specification, entry)) return entry;
+        }
 
-        return equalRespectingInsertionOrder(getKeys(index).entrySet(), keys.entrySet());
+        return null;
     }
 
-    private boolean equalRespectingInsertionOrder(Set<Map.Entry<String, Object>> firstEntries,
-            Set<Map.Entry<String, Object>> secondEntries) {
-        var firstIterator = firstEntries.iterator();
-        var secondIterator = secondEntries.iterator();
-        while (firstIterator.hasNext() && secondIterator.hasNext()) {
-            if (!Objects.equals(firstIterator.next(), secondIterator.next())) return false;
+    private List<MongoIndexCatalog.Entry> getCandidateIndexes(MongoIndexSpecification specification) {
+        var name = specification.getName();
+        if (name != null) {
+            var entry = catalog.findByName(name);
+            return entry == null ? List.of() : List.of(entry);
         }
 
-        return !firstIterator.hasNext() && !secondIterator.hasNext();
+        var keyPattern = specification.getKeyPattern();
+        if (keyPattern != null) return catalog.findByKeyPattern(keyPattern);
+
+        return catalog.getIndexes();
+    }
+
+    private static boolean indexMatchesSpecification(MongoIndexSpecification specification,
+            MongoIndexCatalog.Entry entry) {
+        return MongoIndexDocuments.indexMatchesSpecification(specification, entry.index(), entry.keyPattern());
+    }
+
+    /**
+     * @return all indexes of the collection
+     */
+    public List<MongoIndexSpecification> listIndexes() {
+        return catalog.getIndexes().stream()
+                .map(entry -> toSpecification(entry.index()))
+                .toList();
     }
 
     public MongoIndexSpecification findIndex(MongoIndexSpecification specification) {
-        log.info("Searching index with specification {}", specification);
+        return metrics.record("findIndex", specification, () -> {
+            log.info("Searching index with specification {}", specification);
+
+            var entry = findMatchingIndex(specification);
+            if (entry != null) {
+                log.info("Found index {}", entry.index());
+                return toSpecification(entry.index());
+            }
+
+            log.info("No index found matching specification {}", specification);
+
+            return null;
+        });
+    }
+
+    /**
+     * Determine how to make the indexes of the collection match the given specifications, without changing anything.
+     * <p>
+     * Existing indexes that match a specification are kept, even if they have a different name.
+     * An existing index with the name of a specification that doesn't match it is replaced,
+     * where specifications without name have the name that the server would generate for them.
+     * So is an existing index with the same keys and another name that the server doesn't allow next to the desired one,
+     * because the desired index can't be created before it's dropped.
+     * Existing indexes that don't match any specification are dropped, except for the index on {@code _id}.
+     */
+    public MongoIndexPlan planIndexes(List<MongoIndexSpecification> specifications) {
+        var existingIndexes = catalog.getIndexes();
+        var claimedNames = new HashSet<String>();
+        claimedNames.add(ID_INDEX_NAME);
 
-        var indexes = getCollection().listIndexes();
-        for (var index : indexes) {
-            if (indexMatchesSpecification(specification, index)) {
-                log.info("Found index {}", index);
-                return toSpecification(index);
+        var steps = new ArrayList<MongoIndexPlanStep>();
+        for (var specification : specifications) {
+            var indexWithSameName = catalog.findByName(getIndexName(specification));
+            if (indexWithSameName != null && isEquivalent(specification, indexWithSameName)) {
+                claimedNames.add(getName(indexWithSameName.index()));
+                steps.add(keepStep(KEEP, specification, indexWithSameName));
+                continue;
+            }
+
+            var equivalentIndex = existingIndexes.stream()
+                    .filter(entry -> !claimedNames.contains(getName(entry.index())))
+                    .filter(entry -> isEquivalent(specification, entry))
+                    .findFirst()
+                    .orElse(null);
+            if (equivalentIndex != null) {
+                claimedNames.add(getName(equivalentIndex.index()));
+                var action = specification.getName() == null ? KEEP : KEEP_EQUIVALENT;
+                steps.add(keepStep(action, specification, equivalentIndex));
+                continue;
+            }
+
+            var replacedIndex = indexWithSameName != null
+                    ? indexWithSameName
+                    : catalog.findByKeyPattern(specification.getKeyPattern()).stream()
+                            .filter(entry -> !claimedNames.contains(getName(entry.index())))
+                            .filter(entry -> !canCoexistWithSpecification(specification, entry.index()))
+                            .findFirst()
+                            .orElse(null);
+            if (replacedIndex != null) {
+                claimedNames.add(getName(replacedIndex.index()));
+                steps.add(new MongoIndexPlanStep(REPLACE, specification, toSpecification(replacedIndex.index())));
+            } else {
+                steps.add(new MongoIndexPlanStep(CREATE, specification, null));
             }
         }
 
-        log.info("No index found matching specification {}", specification);
+        for (var entry : existingIndexes) {
+            if (!claimedNames.contains(getName(entry.index()))) {
+                steps.add(new MongoIndexPlanStep(DROP, null, toSpecification(entry.index())));
+            }
+        }
 
-        return null;
+        return new MongoIndexPlan(collectionName, steps);
+    }
+
+    /**
+     * Equivalence ignores whether an index is hidden, so an index that is kept may still need to be hidden or unhidden.
+     */
+    private static MongoIndexPlanStep keepStep(MongoIndexPlanStep.Action action, MongoIndexSpecification specification,
+            MongoIndexCatalog.Entry entry) {
+        var existing = toSpecification(entry.index());
+        if (specification.isHidden() != existing.isHidden()) {
+            return new MongoIndexPlanStep(CHANGE_VISIBILITY, specification, existing);
+        }
+
+        return new MongoIndexPlanStep(action, specification, existing);
     }
 
-    private MongoIndexSpecification toSpecification(Document index) {
-        return MongoIndexSpecification.builder()
-                .name(getName(index))
-                .definition(getKeys(index).toJson())
-                .unique(isUnique(index))
-                .build();
+    private static boolean isEquivalent(MongoIndexSpecification specification, MongoIndexCatalog.Entry entry) {
+        return indexIsEquivalentToSpecification(specification, entry.index(), entry.keyPattern());
     }
 
-    private static Document getKeys(Document index) {
-        return index.get("key", Document.class);
+    /**
+     * Apply a plan created by {@link #planIndexes}.
+     * <p>
+     * New indexes are created before any index is dropped,
+     * and indexes that are no longer needed are only dropped after all other steps.
+     * Indexes can't be renamed, and the server doesn't allow two indexes with the same definition,
+     * so an index that is replaced by an index with the same name or conflicting options
+     * is dropped right before its replacement is built.
+     * Queries can't use either of them while the replacement is being built.
+     * Indexes that only need to be hidden or unhidden are changed in place.
+     */
+    public void applyPlan(MongoIndexPlan plan) {
+        log.info("Applying {}", plan.describe());
+
+        createIndexesOfPlan(plan.getSteps(CREATE));
+
+        for (var step : plan.getSteps(CHANGE_VISIBILITY)) {
+            setHidden(MongoIndexSpecification.builder()
+                    .name(step.getExisting().getName())
+                    .build(), step.getDesired().isHidden());
+        }
+
+        for (var step : plan.getSteps(REPLACE)) {
+            deleteIndexByName(step.getExisting().getName());
+            createIndexesOfPlan(List.of(step));
+        }
+
+        for (var step : plan.getSteps(DROP)) {
+            deleteIndexByName(step.getExisting().getName());
+        }
     }
 
-    private static boolean isUnique(Document index) {
-        return Boolean.TRUE.equals(index.getBoolean("unique"));
+    private void createIndexesOfPlan(List<MongoIndexPlanStep> steps) {
+        if (steps.isEmpty()) return;
+
+        var results = createIndexes(steps.stream()
+                .map(MongoIndexPlanStep::getDesired)
+                .toList());
+        var failures = results.stream()
+                .filter(MongoIndexCreationResult::isFailure)
+                .toList();
+        if (!failures.isEmpty()) {
+            throw new IndexPlanCouldNotBeApplied("Failed to create indexes: " + failures);
+        }
     }
 
-    private static String getName(Document index) {
-        return index.getString("name");
+    private void deleteIndexByName(String name) {
+        deleteIndex(MongoIndexSpecification.builder()
+                .name(name)
+                .build());
     }
 }
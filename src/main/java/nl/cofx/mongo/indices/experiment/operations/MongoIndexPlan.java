@@ -0,0 +1,39 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The steps needed to make the indexes of a collection match a desired state.
+ * See {@link MongoIndexOperations#planIndexes} and {@link MongoIndexOperations#applyPlan}.
+ */
+@Value
+public class MongoIndexPlan {
+
+    String collectionName;
+    List<MongoIndexPlanStep> steps;
+
+    public List<MongoIndexPlanStep> getSteps(MongoIndexPlanStep.Action action) {
+        return steps.stream()
+                .filter(step -> step.getAction() == action)
+                .toList();
+    }
+
+    public boolean hasChanges() {
+        return steps.stream().anyMatch(step -> switch (step.getAction()) {
+            case CREATE, CHANGE_VISIBILITY, REPLACE, DROP -> true;
+            case KEEP, KEEP_EQUIVALENT -> false;
+        });
+    }
+
+    /**
+     * @return a human-readable description of the plan, with one line per step
+     */
+    public String describe() {
+        return steps.stream()
+                .map(MongoIndexPlanStep::describe)
+                .collect(Collectors.joining("\n", "Index plan for collection " + collectionName + ":\n", ""));
+    }
+}
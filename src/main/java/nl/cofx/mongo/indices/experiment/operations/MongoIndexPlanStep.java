@@ -0,0 +1,61 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+@Value
+public class MongoIndexPlanStep {
+
+    Action action;
+
+    /**
+     * The specification of the index as it should be, or {@code null} for an index that should be dropped.
+     */
+    MongoIndexSpecification desired;
+
+    /**
+     * The specification of the index as it currently exists, or {@code null} for an index that should be created.
+     */
+    MongoIndexSpecification existing;
+
+    public enum Action {
+        /**
+         * Create a new index.
+         */
+        CREATE,
+        /**
+         * Keep an existing index that matches the desired specification.
+         */
+        KEEP,
+        /**
+         * Keep an existing index that is equivalent to the desired specification, but has a different name.
+         * Indexes can't be renamed, and rebuilding an equivalent index only to change its name isn't worth it.
+         */
+        KEEP_EQUIVALENT,
+        /**
+         * Keep an existing index that is equivalent to the desired specification, but hide it from the query planner
+         * or make it available again, which doesn't require rebuilding it.
+         */
+        CHANGE_VISIBILITY,
+        /**
+         * Drop an existing index that has the desired name, but a different definition,
+         * or that has the same keys with options that can't be combined with those of the desired index,
+         * and create the desired index.
+         */
+        REPLACE,
+        /**
+         * Drop an existing index that is not part of the desired state.
+         */
+        DROP
+    }
+
+    public String describe() {
+        return switch (action) {
+            case CREATE -> "CREATE " + desired;
+            case KEEP -> "KEEP " + existing;
+            case KEEP_EQUIVALENT -> "KEEP " + existing + " as equivalent of " + desired;
+            case CHANGE_VISIBILITY -> (desired.isHidden() ? "HIDE " : "UNHIDE ") + existing;
+            case REPLACE -> "REPLACE " + existing + " with " + desired;
+            case DROP -> "DROP " + existing;
+        };
+    }
+}
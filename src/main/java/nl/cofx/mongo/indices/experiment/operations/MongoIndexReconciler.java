@@ -0,0 +1,86 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.client.MongoClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Ensures that every collection in a set of collections of the same database has the same indexes.
+ * <p>
+ * Collections are reconciled in parallel, but never more than {@code maxConcurrency} at a time,
+ * to avoid overloading the primary with index builds.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexReconciler {
+
+    private final String databaseName;
+    private final MongoClient mongoClient;
+    private final int maxConcurrency;
+
+    /**
+     * Reconcile the indexes of all collections whose entire name matches the given pattern.
+     */
+    public MongoIndexReconciliationReport reconcile(Pattern collectionNamePattern,
+            List<MongoIndexSpecification> specifications) {
+        var collectionNames = new ArrayList<String>();
+        for (var collectionName : mongoClient.getDatabase(databaseName).listCollectionNames()) {
+            if (collectionNamePattern.matcher(collectionName).matches()) collectionNames.add(collectionName);
+        }
+
+        return reconcile(collectionNames, specifications);
+    }
+
+    public MongoIndexReconciliationReport reconcile(List<String> collectionNames,
+            List<MongoIndexSpecification> specifications) {
+        log.info("Reconciling indexes of {} collections with specifications {}", collectionNames.size(), specifications);
+
+        var start = System.nanoTime();
+        var threadCount = Math.max(1, Math.min(maxConcurrency, collectionNames.size()));
+        var executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            var thread = new Thread(runnable, "index-reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            var futures = collectionNames.stream()
+                    .map(collectionName -> CompletableFuture.supplyAsync(
+                            () -> reconcile(collectionName, specifications), executor))
+                    .toList();
+            var outcomes = futures.stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+
+            var report = new MongoIndexReconciliationReport(outcomes, Duration.ofNanos(System.nanoTime() - start));
+            log.info("Reconciled indexes of {} collections in {}", outcomes.size(), report.getWallTime());
+
+            return report;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private MongoIndexReconciliationOutcome reconcile(String collectionName,
+            List<MongoIndexSpecification> specifications) {
+        var start = System.nanoTime();
+        try {
+            var results = new MongoIndexOperations(databaseName, collectionName, mongoClient)
+                    .createIndexes(specifications);
+
+            return new MongoIndexReconciliationOutcome(collectionName, results, null,
+                    Duration.ofNanos(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            log.warn("Failed to reconcile indexes of collection {}", collectionName, e);
+
+            return new MongoIndexReconciliationOutcome(collectionName, List.of(), e.getMessage(),
+                    Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+}
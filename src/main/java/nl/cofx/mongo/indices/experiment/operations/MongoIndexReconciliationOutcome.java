@@ -0,0 +1,24 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+
+@Value
+public class MongoIndexReconciliationOutcome {
+
+    String collectionName;
+    List<MongoIndexCreationResult> results;
+
+    /**
+     * Why the indexes of the collection couldn't be reconciled, or {@code null} if they could.
+     */
+    String failure;
+
+    Duration duration;
+
+    public boolean isSuccessful() {
+        return failure == null && results.stream().noneMatch(MongoIndexCreationResult::isFailure);
+    }
+}
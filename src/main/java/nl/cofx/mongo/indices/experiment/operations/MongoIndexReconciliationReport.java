@@ -0,0 +1,17 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+
+@Value
+public class MongoIndexReconciliationReport {
+
+    List<MongoIndexReconciliationOutcome> outcomes;
+    Duration wallTime;
+
+    public boolean isSuccessful() {
+        return outcomes.stream().allMatch(MongoIndexReconciliationOutcome::isSuccessful);
+    }
+}
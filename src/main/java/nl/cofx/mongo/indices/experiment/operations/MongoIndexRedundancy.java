@@ -0,0 +1,32 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+@Value
+public class MongoIndexRedundancy {
+
+    MongoIndexSpecification index;
+
+    /**
+     * The index that serves the queries of the redundant index.
+     */
+    MongoIndexSpecification coveredBy;
+
+    Reason reason;
+
+    /**
+     * Size of the redundant index according to {@code $collStats}, which is what dropping it would save.
+     */
+    long sizeInBytes;
+
+    public enum Reason {
+        /**
+         * The index has the same keys as another index.
+         */
+        DUPLICATE,
+        /**
+         * The keys of the index are a prefix of the keys of another index.
+         */
+        PREFIX
+    }
+}
@@ -0,0 +1,120 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.client.MongoClient;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Finds indexes of a collection that duplicate another index or whose keys are a prefix of the keys of another index.
+ * Such indexes take up memory and slow down writes, while every query they serve can be served by the other index.
+ * <p>
+ * Unique indexes are only reported if another index enforces the same constraint,
+ * and the index on {@code _id} is never reported.
+ * TTL indexes are never reported either, because they also delete documents.
+ * An index is only considered covered by another index that is visible to the query planner
+ * and holds at least the same documents and fields, compared using the same collation.
+ */
+@Slf4j
+public class MongoIndexRedundancyAnalyzer {
+
+    private static final String ID_INDEX_NAME = "_id_";
+
+    private final String collectionName;
+    private final MongoIndexOperations mongoIndexOperations;
+
+    public MongoIndexRedundancyAnalyzer(String databaseName, String collectionName, MongoClient mongoClient) {
+        this.collectionName = collectionName;
+        this.mongoIndexOperations = new MongoIndexOperations(databaseName, collectionName, mongoClient);
+    }
+
+    public MongoIndexRedundancyReport analyze() {
+        var indexes = mongoIndexOperations.listIndexes();
+        var indexSizes = getIndexSizes();
+
+        var redundancies = new ArrayList<MongoIndexRedundancy>();
+        for (var i = 0; i < indexes.size(); ++i) {
+            var index = indexes.get(i);
+            if (ID_INDEX_NAME.equals(index.getName())) continue;
+            if (index.getExpireAfterSeconds() != null) continue;
+
+            var redundancy = findRedundancy(index, i, indexes, indexSizes);
+            if (redundancy != null) {
+                log.info("Found redundant index {}", redundancy);
+                redundancies.add(redundancy);
+            }
+        }
+
+        return new MongoIndexRedundancyReport(collectionName, redundancies);
+    }
+
+    private static MongoIndexRedundancy findRedundancy(MongoIndexSpecification index, int position,
+            List<MongoIndexSpecification> indexes, Map<String, Long> indexSizes) {
+        var keyPattern = index.getKeyPattern();
+        for (var j = 0; j < indexes.size(); ++j) {
+            if (j == position) continue;
+
+            var other = indexes.get(j);
+            var otherKeyPattern = other.getKeyPattern();
+            if (index.isUnique() && !other.isUnique()) continue;
+            if (!canServeQueriesOf(other, index)) continue;
+
+            // Of two duplicates, only report the one listed last, so that the other one is kept.
+            var otherIsKept = j < position || ID_INDEX_NAME.equals(other.getName());
+            if (keyPattern.equals(otherKeyPattern) && (otherIsKept || index.isUnique() != other.isUnique())) {
+                return toRedundancy(index, other, MongoIndexRedundancy.Reason.DUPLICATE, indexSizes);
+            }
+
+            if (!index.isUnique() && keyPattern.isAscendingOrDescending() && otherKeyPattern.isAscendingOrDescending()
+                    && keyPattern.isStrictPrefixOf(otherKeyPattern)) {
+                return toRedundancy(index, other, MongoIndexRedundancy.Reason.PREFIX, indexSizes);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * A sparse or partial index lacks documents that a full index contains,
+     * an index with a different collation orders strings differently,
+     * and a wildcard index with a different projection indexes other fields.
+     */
+    private static boolean canServeQueriesOf(MongoIndexSpecification other, MongoIndexSpecification index) {
+        if (other.isHidden()) return false;
+        if (other.isSparse() && !index.isSparse()) return false;
+
+        return Objects.equals(parse(other.getPartialFilterExpression()), parse(index.getPartialFilterExpression()))
+                && Objects.equals(parse(other.getCollation()), parse(index.getCollation()))
+                && Objects.equals(parse(other.getWildcardProjection()), parse(index.getWildcardProjection()));
+    }
+
+    private static Document parse(String json) {
+        return json == null ? null : Document.parse(json);
+    }
+
+    private static MongoIndexRedundancy toRedundancy(MongoIndexSpecification index, MongoIndexSpecification coveredBy,
+            MongoIndexRedundancy.Reason reason, Map<String, Long> indexSizes) {
+        return new MongoIndexRedundancy(index, coveredBy, reason, indexSizes.getOrDefault(index.getName(), 0L));
+    }
+
+    /**
+     * @return the size of every index in bytes, summed over all shards
+     */
+    private Map<String, Long> getIndexSizes() {
+        var pipeline = List.of(new Document("$collStats", new Document("storageStats", new Document())));
+        var indexSizes = new HashMap<String, Long>();
+        for (var stats : mongoIndexOperations.getCollection().aggregate(pipeline)) {
+            var sizes = stats.get("storageStats", Document.class).get("indexSizes", Document.class);
+            if (sizes == null) continue;
+
+            sizes.forEach((name, size) -> indexSizes.merge(name, ((Number) size).longValue(), Long::sum));
+        }
+
+        return indexSizes;
+    }
+}
@@ -0,0 +1,18 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class MongoIndexRedundancyReport {
+
+    String collectionName;
+    List<MongoIndexRedundancy> redundancies;
+
+    public long getEstimatedBytesSaved() {
+        return redundancies.stream()
+                .mapToLong(MongoIndexRedundancy::getSizeInBytes)
+                .sum();
+    }
+}
@@ -1,8 +1,16 @@
 package nl.cofx.mongo.indices.experiment.operations;
 
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
 
+/**
+ * Describes an index. Besides fields, the definition may include index types, such as {@code "hashed"} or {@code "text"},
+ * and wildcard fields, such as {@code "$**"}.
+ * Options that are documents, such as the partial filter expression, are written as JSON, like the definition.
+ */
 @Builder(toBuilder = true)
 @Value
 public class MongoIndexSpecification {
@@ -10,4 +18,41 @@ public class MongoIndexSpecification {
     String definition;
     String name;
     boolean unique;
+    boolean sparse;
+
+    /**
+     * Only documents that match this filter are indexed, for example {@code { randomBoolean: true }}.
+     */
+    String partialFilterExpression;
+
+    /**
+     * Number of seconds after the date in the indexed field at which documents are deleted.
+     */
+    Long expireAfterSeconds;
+
+    /**
+     * Collation used to compare strings, for example {@code { locale: 'en', strength: 2 }}.
+     * Only the fields that are set are compared with the collation of existing indexes,
+     * because MongoDB fills in the others with defaults that depend on the locale.
+     */
+    String collation;
+
+    /**
+     * Fields to include in or exclude from a wildcard index on {@code $**}, for example {@code { randomString: 1 }}.
+     */
+    String wildcardProjection;
+
+    /**
+     * Whether the query planner ignores the index.
+     * Hidden indexes are still maintained, so this doesn't change what an index contains.
+     */
+    boolean hidden;
+
+    /**
+     * The definition of this specification, parsed once when it's first needed.
+     */
+    @EqualsAndHashCode.Exclude
+    @Getter(lazy = true)
+    @ToString.Exclude
+    private final MongoIndexKeyPattern keyPattern = definition == null ? null : MongoIndexKeyPattern.parse(definition);
 }
@@ -0,0 +1,184 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import nl.cofx.mongo.indices.experiment.explain.QueryPlan;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexStagedDropResult.Outcome.ALREADY_HIDDEN;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexStagedDropResult.Outcome.DROPPED;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexStagedDropResult.Outcome.NOT_FOUND;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexStagedDropResult.Outcome.RESTORED;
+
+/**
+ * Drops an index only after verifying that queries don't need it.
+ * <p>
+ * The index is hidden first, which takes it out of consideration by the query planner without removing it.
+ * While it's hidden, a probe explains the queries that matter, such as those of a repository, at a fixed interval.
+ * If any query regresses compared to the plans from before the index was hidden, the index is unhidden,
+ * which takes effect immediately.
+ * Otherwise, the index is dropped at the end of the observation window.
+ */
+@Slf4j
+public class MongoIndexStagedDrop {
+
+    private final MongoIndexOperations mongoIndexOperations;
+    private final Supplier<Map<String, QueryPlan>> probe;
+    private final Settings settings;
+
+    /**
+     * @param probe explains every query that must not regress, by a name identifying the query
+     */
+    public MongoIndexStagedDrop(MongoIndexOperations mongoIndexOperations, Supplier<Map<String, QueryPlan>> probe,
+            Settings settings) {
+        this.mongoIndexOperations = mongoIndexOperations;
+        this.probe = probe;
+        this.settings = settings;
+    }
+
+    @Builder
+    @Value
+    public static class Settings {
+
+        /**
+         * How long the index stays hidden before it's dropped.
+         */
+        @Builder.Default
+        Duration window = Duration.ofMinutes(5);
+
+        @Builder.Default
+        Duration sampleInterval = Duration.ofSeconds(10);
+
+        /**
+         * Number of times the queries are explained before hiding the index, to establish a baseline.
+         */
+        @Builder.Default
+        int baselineSamples = 3;
+
+        /**
+         * Factor by which the median execution time of a query may grow before it's considered a regression.
+         * Execution times are reported in whole milliseconds, so one millisecond is allowed on top of this.
+         */
+        @Builder.Default
+        double maxLatencyFactor = 1.5;
+
+        /**
+         * Factor by which the number of keys or documents examined per document returned may grow.
+         */
+        @Builder.Default
+        double maxExaminedFactor = 2;
+    }
+
+    /**
+     * An index that is already hidden is left as is,
+     * because the baseline would be measured without it and restoring it would unhide it.
+     */
+    public MongoIndexStagedDropResult run(MongoIndexSpecification specification) throws InterruptedException {
+        var index = mongoIndexOperations.findIndex(specification);
+        if (index == null) {
+            return new MongoIndexStagedDropResult(specification, NOT_FOUND, List.of());
+        }
+        if (index.isHidden()) {
+            log.warn("Not dropping index matching {}, because it's already hidden", specification);
+            return new MongoIndexStagedDropResult(specification, ALREADY_HIDDEN, List.of());
+        }
+
+        var baseline = sample(settings.getBaselineSamples());
+
+        if (!mongoIndexOperations.hideIndex(specification)) {
+            return new MongoIndexStagedDropResult(specification, NOT_FOUND, List.of());
+        }
+
+        List<String> regressions;
+        try {
+            regressions = observe(baseline);
+        } catch (InterruptedException | RuntimeException e) {
+            log.warn("Unhiding index matching {} after failing to observe queries", specification);
+            mongoIndexOperations.unhideIndex(specification);
+            throw e;
+        }
+
+        if (!regressions.isEmpty()) {
+            log.warn("Unhiding index matching {}, because queries regressed: {}", specification, regressions);
+            mongoIndexOperations.unhideIndex(specification);
+            return new MongoIndexStagedDropResult(specification, RESTORED, regressions);
+        }
+
+        log.info("Dropping index matching {}, because no query regressed", specification);
+        mongoIndexOperations.deleteIndex(specification);
+        return new MongoIndexStagedDropResult(specification, DROPPED, List.of());
+    }
+
+    /**
+     * Explain the queries until the window has passed, stopping as soon as any of them regresses.
+     */
+    private List<String> observe(Map<String, List<QueryPlan>> baseline) throws InterruptedException {
+        var deadline = Instant.now().plus(settings.getWindow());
+        var observed = new HashMap<String, List<QueryPlan>>();
+        while (true) {
+            probe.get().forEach((name, queryPlan) -> observed.computeIfAbsent(name, key -> new ArrayList<>()).add(queryPlan));
+
+            var regressions = findRegressions(baseline, observed);
+            if (!regressions.isEmpty() || !Instant.now().isBefore(deadline)) return regressions;
+
+            Thread.sleep(settings.getSampleInterval().toMillis());
+        }
+    }
+
+    private Map<String, List<QueryPlan>> sample(int count) {
+        var samples = new HashMap<String, List<QueryPlan>>();
+        for (var i = 0; i < count; ++i) {
+            probe.get().forEach((name, queryPlan) -> samples.computeIfAbsent(name, key -> new ArrayList<>()).add(queryPlan));
+        }
+
+        return samples;
+    }
+
+    private List<String> findRegressions(Map<String, List<QueryPlan>> baseline, Map<String, List<QueryPlan>> observed) {
+        var regressions = new ArrayList<String>();
+        observed.forEach((name, queryPlans) -> {
+            var baselinePlans = baseline.get(name);
+            if (baselinePlans == null || baselinePlans.isEmpty()) return;
+
+            var latest = queryPlans.get(queryPlans.size() - 1);
+            var before = baselinePlans.get(baselinePlans.size() - 1);
+            if (latest.isCollectionScan() && !before.isCollectionScan()) {
+                regressions.add(name + " scans the collection");
+                return;
+            }
+
+            var examinedBefore = before.getExaminedToReturnedRatio();
+            var examinedNow = latest.getExaminedToReturnedRatio();
+            if (examinedNow > Math.max(examinedBefore, 1) * settings.getMaxExaminedFactor()) {
+                regressions.add("%s examines %.1f keys or documents per document returned instead of %.1f"
+                        .formatted(name, examinedNow, examinedBefore));
+                return;
+            }
+
+            var latencyBefore = medianExecutionTimeMillis(baselinePlans);
+            var latencyNow = medianExecutionTimeMillis(queryPlans);
+            if (latencyNow > latencyBefore * settings.getMaxLatencyFactor() + 1) {
+                regressions.add("%s takes %d ms instead of %d ms".formatted(name, latencyNow, latencyBefore));
+            }
+        });
+
+        return regressions;
+    }
+
+    private static long medianExecutionTimeMillis(List<QueryPlan> queryPlans) {
+        var executionTimes = queryPlans.stream()
+                .mapToLong(QueryPlan::getExecutionTimeMillis)
+                .sorted()
+                .toArray();
+
+        return executionTimes[executionTimes.length / 2];
+    }
+}
@@ -0,0 +1,36 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class MongoIndexStagedDropResult {
+
+    public enum Outcome {
+        /**
+         * No query regressed while the index was hidden, so it was dropped.
+         */
+        DROPPED,
+        /**
+         * Queries regressed while the index was hidden, so it was unhidden again.
+         */
+        RESTORED,
+        /**
+         * No index matched the specification.
+         */
+        NOT_FOUND,
+        /**
+         * The index was already hidden, so queries couldn't be compared with and without it, and it was left as is.
+         */
+        ALREADY_HIDDEN
+    }
+
+    MongoIndexSpecification specification;
+    Outcome outcome;
+
+    /**
+     * Descriptions of the queries that regressed while the index was hidden.
+     */
+    List<String> regressions;
+}
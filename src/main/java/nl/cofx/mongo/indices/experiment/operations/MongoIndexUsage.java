@@ -0,0 +1,27 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class MongoIndexUsage {
+
+    String collectionName;
+    MongoIndexSpecification index;
+
+    /**
+     * Samples taken for the index, from oldest to most recent.
+     */
+    List<MongoIndexUsageSample> history;
+
+    /**
+     * Average number of operations per second that used the index between the two most recent samples,
+     * or since the server started counting if the counter was reset in between.
+     */
+    double opsPerSecond;
+
+    public MongoIndexUsageSample getLatestSample() {
+        return history.get(history.size() - 1);
+    }
+}
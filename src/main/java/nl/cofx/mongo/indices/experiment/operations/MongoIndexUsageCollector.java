@@ -0,0 +1,202 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.client.MongoClient;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples {@code $indexStats} for a set of collections and keeps a bounded history of samples per index,
+ * so that indexes that are not used by any query can be found.
+ */
+@Slf4j
+public class MongoIndexUsageCollector implements AutoCloseable {
+
+    private static final int DEFAULT_HISTORY_SIZE = 100;
+
+    private final String databaseName;
+    private final List<String> collectionNames;
+    private final MongoClient mongoClient;
+    private final int historySize;
+    private final Map<IndexKey, IndexHistory> histories = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "index-usage-collector");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MongoIndexUsageCollector(String databaseName, List<String> collectionNames, MongoClient mongoClient) {
+        this(databaseName, collectionNames, mongoClient, DEFAULT_HISTORY_SIZE);
+    }
+
+    public MongoIndexUsageCollector(String databaseName, List<String> collectionNames, MongoClient mongoClient,
+            int historySize) {
+        this.databaseName = databaseName;
+        this.collectionNames = List.copyOf(collectionNames);
+        this.mongoClient = mongoClient;
+        this.historySize = historySize;
+    }
+
+    public void start(Duration interval) {
+        var intervalMillis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sampleSafely, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Any exception is caught, because an exception escaping a periodic task cancels all later runs.
+     */
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            log.warn("Failed to sample index usage", e);
+        }
+    }
+
+    /**
+     * Take a sample of the usage of every index of the managed collections.
+     */
+    public void sample() {
+        for (var collectionName : collectionNames) {
+            sample(collectionName);
+        }
+    }
+
+    private void sample(String collectionName) {
+        var sampledAt = Instant.now();
+        var pipeline = List.of(new Document("$indexStats", new Document()));
+        var statsByName = new HashMap<String, List<Document>>();
+        for (var stats : mongoClient.getDatabase(databaseName).getCollection(collectionName).aggregate(pipeline)) {
+            statsByName.computeIfAbsent(stats.getString("name"), name -> new ArrayList<>()).add(stats);
+        }
+
+        statsByName.forEach((name, stats) -> {
+            var history = histories.computeIfAbsent(new IndexKey(collectionName, name), key -> new IndexHistory());
+            history.add(toSpecification(stats.get(0)), toSample(stats, sampledAt), historySize);
+        });
+
+        histories.keySet().removeIf(key ->
+                key.collectionName().equals(collectionName) && !statsByName.containsKey(key.indexName()));
+    }
+
+    private static MongoIndexSpecification toSpecification(Document stats) {
+        var spec = stats.get("spec", Document.class);
+        if (spec != null) return MongoIndexDocuments.toSpecification(spec);
+
+        return MongoIndexSpecification.builder()
+                .name(stats.getString("name"))
+                .definition(stats.get("key", Document.class).toJson())
+                .build();
+    }
+
+    /**
+     * Combine the statistics reported by every host into a single sample.
+     * Operations are summed, and the most recent start of counting is used.
+     */
+    private static MongoIndexUsageSample toSample(List<Document> stats, Instant sampledAt) {
+        var ops = 0L;
+        Instant since = null;
+        for (var hostStats : stats) {
+            var accesses = hostStats.get("accesses", Document.class);
+            ops += accesses.get("ops", Number.class).longValue();
+            var hostSince = accesses.get("since", Date.class).toInstant();
+            if (since == null || hostSince.isAfter(since)) since = hostSince;
+        }
+
+        return new MongoIndexUsageSample(sampledAt, ops, since);
+    }
+
+    public List<MongoIndexUsage> getUsage() {
+        return histories.entrySet().stream()
+                .map(entry -> entry.getValue().toUsage(entry.getKey().collectionName()))
+                .toList();
+    }
+
+    /**
+     * @return the indexes that haven't been used by any operation since the given moment,
+     * as far as can be determined from the samples taken
+     */
+    public List<MongoIndexUsage> findUnusedSince(Instant moment) {
+        return histories.entrySet().stream()
+                .filter(entry -> entry.getValue().isUnusedSince(moment))
+                .map(entry -> entry.getValue().toUsage(entry.getKey().collectionName()))
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private record IndexKey(String collectionName, String indexName) {
+    }
+
+    private static class IndexHistory {
+
+        private final ArrayDeque<MongoIndexUsageSample> samples = new ArrayDeque<>();
+        private MongoIndexSpecification specification;
+
+        synchronized void add(MongoIndexSpecification specification, MongoIndexUsageSample sample, int historySize) {
+            this.specification = specification;
+            samples.addLast(sample);
+            while (samples.size() > historySize) samples.removeFirst();
+        }
+
+        synchronized MongoIndexUsage toUsage(String collectionName) {
+            return new MongoIndexUsage(collectionName, specification, List.copyOf(samples), getOpsPerSecond());
+        }
+
+        private double getOpsPerSecond() {
+            var latest = samples.getLast();
+            var previous = samples.size() > 1 ? getPrevious() : null;
+            if (previous == null || !previous.getSince().equals(latest.getSince())) {
+                return perSecond(latest.getOps(), Duration.between(latest.getSince(), latest.getSampledAt()));
+            }
+
+            return perSecond(latest.getOps() - previous.getOps(),
+                    Duration.between(previous.getSampledAt(), latest.getSampledAt()));
+        }
+
+        private MongoIndexUsageSample getPrevious() {
+            var iterator = samples.descendingIterator();
+            iterator.next();
+            return iterator.next();
+        }
+
+        private static double perSecond(long ops, Duration duration) {
+            var seconds = duration.toMillis() / 1000.0;
+            return seconds <= 0 ? 0 : ops / seconds;
+        }
+
+        synchronized boolean isUnusedSince(Instant moment) {
+            if (samples.isEmpty()) return false;
+
+            // Samples taken before the given moment say nothing about what happened after it.
+            var latest = samples.getLast();
+            if (!latest.getSampledAt().isAfter(moment)) return false;
+
+            if (latest.getOps() == 0 && !latest.getSince().isAfter(moment)) return true;
+
+            MongoIndexUsageSample baseline = null;
+            for (var sample : samples) {
+                if (!sample.getSampledAt().isAfter(moment) && sample.getSince().equals(latest.getSince())) {
+                    baseline = sample;
+                }
+            }
+
+            return baseline != null && baseline.getOps() == latest.getOps();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class MongoIndexUsageSample {
+
+    Instant sampledAt;
+
+    /**
+     * Number of operations that used the index since {@link #since}, as reported by {@code $indexStats}.
+     */
+    long ops;
+
+    /**
+     * When the server started counting operations for the index, which is reset when the server restarts.
+     */
+    Instant since;
+}
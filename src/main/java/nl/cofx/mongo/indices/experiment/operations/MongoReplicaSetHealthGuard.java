@@ -0,0 +1,112 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoClient;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Considers the cluster healthy as long as replication lag and the latency of a probe query stay below thresholds.
+ * <p>
+ * Replication lag is derived from {@code replSetGetStatus}, as the difference between the last operation applied
+ * by the primary and by the slowest secondary.
+ * Standalone servers have no replication lag.
+ * The probe query is executed once per check, against the collection whose indexes are built.
+ */
+@Slf4j
+public class MongoReplicaSetHealthGuard implements MongoIndexBuildGuard {
+
+    private static final int NO_REPLICATION_ENABLED = 76;
+    private static final int PRIMARY = 1;
+    private static final int SECONDARY = 2;
+
+    private final String databaseName;
+    private final String collectionName;
+    private final MongoClient mongoClient;
+    private final Thresholds thresholds;
+
+    public MongoReplicaSetHealthGuard(String databaseName, String collectionName, MongoClient mongoClient,
+            Thresholds thresholds) {
+        this.databaseName = databaseName;
+        this.collectionName = collectionName;
+        this.mongoClient = mongoClient;
+        this.thresholds = thresholds;
+    }
+
+    @Builder
+    @Value
+    public static class Thresholds {
+
+        @Builder.Default
+        Duration maxReplicationLag = Duration.ofSeconds(10);
+
+        @Builder.Default
+        Duration maxProbeLatency = Duration.ofMillis(100);
+
+        /**
+         * Filter of the probe query, which should resemble the queries that must stay fast while indexes are built.
+         */
+        @Builder.Default
+        Document probeFilter = new Document();
+    }
+
+    @Override
+    public MongoClusterHealth check() {
+        var replicationLag = measureReplicationLag();
+        var probeLatency = measureProbeLatency();
+
+        String problem = null;
+        if (replicationLag.compareTo(thresholds.getMaxReplicationLag()) > 0) {
+            problem = "Replication lag of %s exceeds %s".formatted(replicationLag, thresholds.getMaxReplicationLag());
+        } else if (probeLatency.compareTo(thresholds.getMaxProbeLatency()) > 0) {
+            problem = "Probe latency of %s exceeds %s".formatted(probeLatency, thresholds.getMaxProbeLatency());
+        }
+
+        var health = new MongoClusterHealth(replicationLag, probeLatency, problem);
+        log.debug("Cluster health: {}", health);
+
+        return health;
+    }
+
+    private Duration measureReplicationLag() {
+        Document status;
+        try {
+            status = mongoClient.getDatabase("admin").runCommand(new Document("replSetGetStatus", 1));
+        } catch (MongoCommandException e) {
+            if (e.getErrorCode() == NO_REPLICATION_ENABLED) return Duration.ZERO;
+            throw e;
+        }
+
+        Date primaryOptime = null;
+        Date slowestSecondaryOptime = null;
+        for (var member : status.getList("members", Document.class)) {
+            var state = member.get("state", Number.class).intValue();
+            var optime = member.getDate("optimeDate");
+            if (optime == null) continue;
+
+            if (state == PRIMARY) {
+                primaryOptime = optime;
+            } else if (state == SECONDARY && (slowestSecondaryOptime == null || optime.before(slowestSecondaryOptime))) {
+                slowestSecondaryOptime = optime;
+            }
+        }
+
+        if (primaryOptime == null || slowestSecondaryOptime == null) return Duration.ZERO;
+
+        var lag = Duration.ofMillis(primaryOptime.getTime() - slowestSecondaryOptime.getTime());
+        return lag.isNegative() ? Duration.ZERO : lag;
+    }
+
+    private Duration measureProbeLatency() {
+        var collection = mongoClient.getDatabase(databaseName).getCollection(collectionName);
+        var start = System.nanoTime();
+        collection.find(thresholds.getProbeFilter()).limit(1).first();
+
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,118 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Objects;
+
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.getIndexOptions;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.getKeys;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.getName;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.indexIsEquivalentToSpecification;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.indexMatchesSpecification;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexDocuments.isIndexNotFound;
+
+/**
+ * Counterpart of {@link MongoIndexOperations} for the reactive streams driver.
+ * <p>
+ * Nothing happens until the returned publishers are subscribed to.
+ * Indexes are matched while they are streamed from the server,
+ * so listing stops as soon as a matching index is found.
+ */
+@Slf4j
+public class ReactiveMongoIndexOperations {
+
+    private final String databaseName;
+    private final String collectionName;
+    private final MongoClient mongoClient;
+    private final MongoIndexOperationMetrics metrics;
+
+    public ReactiveMongoIndexOperations(String databaseName, String collectionName, MongoClient mongoClient) {
+        this(databaseName, collectionName, mongoClient, Metrics.globalRegistry);
+    }
+
+    public ReactiveMongoIndexOperations(String databaseName, String collectionName, MongoClient mongoClient,
+            MeterRegistry meterRegistry) {
+        this.databaseName = databaseName;
+        this.collectionName = collectionName;
+        this.mongoClient = mongoClient;
+        this.metrics = new MongoIndexOperationMetrics(meterRegistry, collectionName);
+    }
+
+    public Mono<Void> createIndex(MongoIndexSpecification specification) {
+        return metrics.record("createIndex", specification, Mono.defer(() -> {
+                    log.info("Creating index with specification {}", specification);
+                    return Mono.from(getCollection().createIndex(Objects.requireNonNull(getKeys(specification)),
+                            getIndexOptions(specification)));
+                })
+                .doOnNext(name -> log.info("Created index {}", name))
+                .onErrorMap(MongoCommandException.class, MongoIndexDocuments::translateException)
+                .then());
+    }
+
+    /**
+     * If an index that is equivalent to the given specification already exists,
+     * regardless of its name, do nothing.
+     * <p>
+     * Otherwise, create the index matching the specification.
+     */
+    public Mono<Void> createIndexWithPreferredName(MongoIndexSpecification specification) {
+        return Flux.defer(() -> getCollection().listIndexes())
+                .filter(index -> indexIsEquivalentToSpecification(specification, index, MongoIndexKeyPattern.of(getKeys(index))))
+                .next()
+                .doOnNext(existingIndex -> log.info("Index equivalent to specification already exists: {}", existingIndex))
+                .hasElement()
+                .flatMap(exists -> exists ? Mono.<Void>empty() : createIndex(specification));
+    }
+
+    public Mono<Void> deleteIndex(MongoIndexSpecification specification) {
+        return metrics.record("deleteIndex", specification, Mono.defer(() -> {
+                    log.info("Deleting index with specification {}", specification);
+                    return findMatchingIndex(specification);
+                })
+                // Another client may drop the index after it has been found, which counts as not finding it.
+                .flatMap(index -> Mono.from(getCollection().dropIndex(getName(index)))
+                        .then(Mono.fromRunnable(() -> log.info("Deleted index {}", index)))
+                        .thenReturn(index)
+                        .onErrorResume(MongoCommandException.class, e -> isIndexNotFound(e) ? Mono.empty() : Mono.error(e)))
+                .switchIfEmpty(Mono.fromRunnable(() -> log.info("No index found matching specification {}", specification)))
+                .then());
+    }
+
+    public Mono<MongoIndexSpecification> findIndex(MongoIndexSpecification specification) {
+        return metrics.record("findIndex", specification, Mono.defer(() -> {
+                    log.info("Searching index with specification {}", specification);
+                    return findMatchingIndex(specification);
+                })
+                .doOnNext(index -> log.info("Found index {}", index))
+                .map(MongoIndexDocuments::toSpecification)
+                .switchIfEmpty(Mono.fromRunnable(() -> log.info("No index found matching specification {}", specification))));
+    }
+
+    /**
+     * @return all indexes of the collection, streamed as they are received from the server
+     */
+    public Flux<MongoIndexSpecification> listIndexes() {
+        return Flux.from(getCollection().listIndexes())
+                .map(MongoIndexDocuments::toSpecification);
+    }
+
+    private Mono<Document> findMatchingIndex(MongoIndexSpecification specification) {
+        var matchKeys = specification.getKeyPattern() != null;
+        return Flux.from(getCollection().listIndexes())
+                .filter(index -> indexMatchesSpecification(specification, index,
+                        matchKeys ? MongoIndexKeyPattern.of(getKeys(index)) : null))
+                .next();
+    }
+
+    private MongoCollection<Document> getCollection() {
+        return mongoClient.getDatabase(databaseName).getCollection(collectionName);
+    }
+}
@@ -0,0 +1,71 @@
+package nl.cofx.mongo.indices.experiment.profiler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts latencies in buckets whose upper bounds are powers of two milliseconds, from 1 ms up to about 17 minutes.
+ * <p>
+ * Recording a latency doesn't allocate or lock, so it can be done for every profiled query.
+ * Percentiles are reported as the upper bound of the bucket they fall in, so they're at most twice the actual value.
+ */
+class LatencyHistogram {
+
+    private static final int BUCKETS = 21;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalMillis = new LongAdder();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    void record(long millis) {
+        counts.incrementAndGet(getBucket(millis));
+        totalMillis.add(millis);
+        maxMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    private static int getBucket(long millis) {
+        if (millis <= 1) return 0;
+
+        var bucket = 64 - Long.numberOfLeadingZeros(millis - 1);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static long getUpperBound(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    long getCount() {
+        var count = 0L;
+        for (var i = 0; i < BUCKETS; ++i) {
+            count += counts.get(i);
+        }
+
+        return count;
+    }
+
+    long getTotalMillis() {
+        return totalMillis.sum();
+    }
+
+    long getMaxMillis() {
+        return maxMillis.get();
+    }
+
+    /**
+     * @param percentile a number between 0 and 100, such as 99 for the 99th percentile
+     */
+    long getPercentile(double percentile) {
+        var count = getCount();
+        if (count == 0) return 0;
+
+        var rank = (long) Math.ceil(percentile / 100 * count);
+        var seen = 0L;
+        for (var i = 0; i < BUCKETS; ++i) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(getUpperBound(i), getMaxMillis());
+        }
+
+        return getMaxMillis();
+    }
+}
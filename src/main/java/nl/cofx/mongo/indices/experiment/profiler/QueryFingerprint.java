@@ -0,0 +1,109 @@
+package nl.cofx.mongo.indices.experiment.profiler;
+
+import lombok.Value;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Identifies queries that only differ in the values they're executed with.
+ * <p>
+ * The shape of a filter keeps its field names and operators, but replaces every value by {@code ?}.
+ * Fields are ordered by name, so that {@code { a: 1, b: 2 }} and {@code { b: 3, a: 4 }} have the same shape.
+ * Sorts keep their directions, because those influence which index can be used.
+ */
+@Value
+public class QueryFingerprint {
+
+    private static final String PLACEHOLDER = "?";
+    private static final Set<String> LOGICAL_OPERATORS = Set.of("$and", "$or", "$nor");
+    private static final List<String> FILTER_KEYS = List.of("filter", "query", "q");
+    private static final Set<String> COMMAND_OPERATIONS = Set.of("query", "command", "getmore");
+
+    String namespace;
+    String operation;
+    String shape;
+
+    /**
+     * Determine the fingerprint of an entry of {@code system.profile}.
+     * Entries of {@code getMore} operations are attributed to the command that opened the cursor.
+     * Entries of commands, such as {@code find} or {@code aggregate}, are identified by the name of the command,
+     * and those of writes by their operation, such as {@code update}.
+     */
+    public static QueryFingerprint of(Document profileEntry) {
+        var command = profileEntry.get("originatingCommand", Document.class);
+        if (command == null) command = profileEntry.get("command", Document.class);
+        if (command == null) command = new Document();
+
+        var operation = profileEntry.getString("op");
+        if (COMMAND_OPERATIONS.contains(operation) && !command.isEmpty()) operation = command.keySet().iterator().next();
+
+        return new QueryFingerprint(profileEntry.getString("ns"), operation, getShape(command));
+    }
+
+    private static String getShape(Document command) {
+        var shape = new Document();
+        for (var key : FILTER_KEYS) {
+            var filter = command.get(key);
+            if (filter instanceof Document document) {
+                shape.append("filter", normalize(document));
+                break;
+            }
+        }
+
+        var sort = command.get("sort");
+        if (sort instanceof Document document && !document.isEmpty()) shape.append("sort", document);
+
+        var pipeline = command.get("pipeline");
+        if (pipeline instanceof List<?> stages) shape.append("pipeline", normalizePipeline(stages));
+
+        return shape.toJson();
+    }
+
+    private static List<Object> normalizePipeline(List<?> stages) {
+        var result = new ArrayList<>();
+        for (var stage : stages) {
+            if (!(stage instanceof Document document) || document.isEmpty()) continue;
+
+            var name = document.keySet().iterator().next();
+            if (name.equals("$match") && document.get(name) instanceof Document filter) {
+                result.add(new Document(name, normalize(filter)));
+            } else if (name.equals("$sort")) {
+                result.add(document);
+            } else {
+                result.add(name);
+            }
+        }
+
+        return result;
+    }
+
+    static Document normalize(Document filter) {
+        var sorted = new TreeMap<String, Object>();
+        filter.forEach((key, value) -> sorted.put(key, normalizeValue(key, value)));
+
+        return new Document(sorted);
+    }
+
+    private static Object normalizeValue(String key, Object value) {
+        if (value instanceof Document document) return normalize(document);
+        if (LOGICAL_OPERATORS.contains(key) && value instanceof List<?> conditions) {
+            var result = new ArrayList<>();
+            for (var condition : conditions) {
+                result.add(condition instanceof Document document ? normalize(document) : PLACEHOLDER);
+            }
+
+            return result;
+        }
+
+        return PLACEHOLDER;
+    }
+
+    @Override
+    public String toString() {
+        return operation + " " + namespace + " " + shape;
+    }
+}
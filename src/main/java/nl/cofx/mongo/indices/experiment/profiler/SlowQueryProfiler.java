@@ -0,0 +1,201 @@
+package nl.cofx.mongo.indices.experiment.profiler;
+
+import com.mongodb.CursorType;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Captures slow queries with the database profiler and aggregates them per {@link QueryFingerprint}.
+ * <p>
+ * On start, profiling level 1 is enabled for each of the given databases,
+ * so that the server writes every operation slower than the threshold to {@code system.profile}.
+ * That capped collection is followed with a tailable cursor on a background thread per database.
+ * Only the fields that are needed are fetched, and recording an entry doesn't lock,
+ * which keeps the overhead on the application side low.
+ * On close, the profiling level and threshold that were in place before are restored.
+ */
+@Slf4j
+public class SlowQueryProfiler implements AutoCloseable {
+
+    private static final String PROFILE_COLLECTION_NAME = "system.profile";
+    private static final Document PROJECTION = new Document("ts", 1)
+            .append("ns", 1)
+            .append("op", 1)
+            .append("command", 1)
+            .append("originatingCommand", 1)
+            .append("millis", 1)
+            .append("planSummary", 1);
+    private static final Duration MAX_AWAIT_TIME = Duration.ofSeconds(1);
+
+    private final MongoClient mongoClient;
+    private final List<String> databaseNames;
+    private final int slowMs;
+    private final Duration retryDelay;
+    private final Map<QueryFingerprint, Statistics> statistics = new ConcurrentHashMap<>();
+    private final Map<String, Document> previousProfilingLevels = new ConcurrentHashMap<>();
+    private final List<Thread> tailers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public SlowQueryProfiler(MongoClient mongoClient, List<String> databaseNames, int slowMs, Duration retryDelay) {
+        this.mongoClient = mongoClient;
+        this.databaseNames = List.copyOf(databaseNames);
+        this.slowMs = slowMs;
+        this.retryDelay = retryDelay;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+
+        running = true;
+        var startedAt = new Date();
+        for (var databaseName : databaseNames) {
+            var database = mongoClient.getDatabase(databaseName);
+            enableProfiling(database);
+
+            var tailer = new Thread(() -> tail(database, startedAt), "slow-query-profiler-" + databaseName);
+            tailer.setDaemon(true);
+            tailer.start();
+            tailers.add(tailer);
+        }
+    }
+
+    private void enableProfiling(MongoDatabase database) {
+        var previous = database.runCommand(new Document("profile", 1).append("slowms", slowMs));
+        previousProfilingLevels.put(database.getName(), previous);
+        log.info("Enabled profiling of operations slower than {} ms on database {}", slowMs, database.getName());
+    }
+
+    /**
+     * Follow {@code system.profile}, starting after the given time.
+     * A tailable cursor on an empty capped collection is closed by the server right away,
+     * so the cursor is reopened after the last entry that was seen until the profiler is closed.
+     */
+    private void tail(MongoDatabase database, Date startedAt) {
+        var profile = database.getCollection(PROFILE_COLLECTION_NAME);
+        var ownNamespace = database.getName() + "." + PROFILE_COLLECTION_NAME;
+        var lastSeen = startedAt;
+        while (running) {
+            var filter = new Document("ts", new Document("$gt", lastSeen))
+                    .append("ns", new Document("$ne", ownNamespace));
+            try (var cursor = profile.find(filter)
+                    .projection(PROJECTION)
+                    .cursorType(CursorType.TailableAwait)
+                    .maxAwaitTime(MAX_AWAIT_TIME.toMillis(), TimeUnit.MILLISECONDS)
+                    .noCursorTimeout(true)
+                    .iterator()) {
+                while (running) {
+                    var entry = cursor.tryNext();
+                    if (entry == null) {
+                        if (cursor.getServerCursor() == null) break;
+                        continue;
+                    }
+
+                    record(entry);
+                    var timestamp = entry.getDate("ts");
+                    if (timestamp != null) lastSeen = timestamp;
+                }
+            } catch (MongoException e) {
+                if (running) log.warn("Failed to follow profile of database {}: {}", database.getName(), e.getMessage());
+            }
+
+            sleepBeforeRetry();
+        }
+    }
+
+    private void sleepBeforeRetry() {
+        if (!running) return;
+
+        try {
+            Thread.sleep(retryDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    void record(Document entry) {
+        var fingerprint = QueryFingerprint.of(entry);
+        var millis = entry.get("millis", Number.class);
+        statistics.computeIfAbsent(fingerprint, ignored -> new Statistics())
+                .record(millis == null ? 0 : millis.longValue(), entry.getString("planSummary"));
+    }
+
+    /**
+     * @return the statistics per fingerprint, ordered by the total time spent, so that the most costly queries come first
+     */
+    public List<SlowQueryStatistics> getStatistics() {
+        return statistics.entrySet().stream()
+                .map(entry -> entry.getValue().toStatistics(entry.getKey()))
+                .sorted(Comparator.comparingLong(SlowQueryStatistics::getTotalMillis).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) return;
+
+        running = false;
+        tailers.forEach(Thread::interrupt);
+        tailers.clear();
+
+        previousProfilingLevels.forEach((databaseName, previous) -> {
+            var command = new Document("profile", previous.get("was", Number.class).intValue())
+                    .append("slowms", previous.get("slowms"));
+            try {
+                mongoClient.getDatabase(databaseName).runCommand(command);
+                log.info("Restored profiling level of database {}", databaseName);
+            } catch (MongoException e) {
+                log.warn("Failed to restore profiling level of database {}: {}", databaseName, e.getMessage());
+            }
+        });
+        previousProfilingLevels.clear();
+    }
+
+    private static class Statistics {
+
+        private static final String COLLECTION_SCAN = "COLLSCAN";
+
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder collectionScans = new LongAdder();
+        private final Map<String, LongAdder> indexesUsed = new ConcurrentHashMap<>();
+
+        void record(long millis, String planSummary) {
+            latencies.record(millis);
+            if (planSummary == null) return;
+
+            if (planSummary.startsWith(COLLECTION_SCAN)) {
+                collectionScans.increment();
+            } else {
+                indexesUsed.computeIfAbsent(planSummary, ignored -> new LongAdder()).increment();
+            }
+        }
+
+        SlowQueryStatistics toStatistics(QueryFingerprint fingerprint) {
+            var indexes = new TreeMap<String, Long>();
+            indexesUsed.forEach((planSummary, count) -> indexes.put(planSummary, count.sum()));
+
+            return new SlowQueryStatistics(fingerprint, latencies.getCount(), latencies.getTotalMillis(),
+                    latencies.getPercentile(50), latencies.getPercentile(95), latencies.getPercentile(99),
+                    latencies.getMaxMillis(), collectionScans.sum(), indexes);
+        }
+    }
+}
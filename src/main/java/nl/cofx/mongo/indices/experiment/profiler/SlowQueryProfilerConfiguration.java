@@ -0,0 +1,22 @@
+package nl.cofx.mongo.indices.experiment.profiler;
+
+import com.mongodb.client.MongoClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Provides a running {@link SlowQueryProfiler} if {@code slow-query-profiler.enabled} is {@code true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "slow-query-profiler", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SlowQueryProfilerProperties.class)
+public class SlowQueryProfilerConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public SlowQueryProfiler slowQueryProfiler(MongoClient mongoClient, SlowQueryProfilerProperties properties) {
+        return new SlowQueryProfiler(mongoClient, properties.getDatabases(), properties.getSlowMs(),
+                properties.getRetryDelay());
+    }
+}
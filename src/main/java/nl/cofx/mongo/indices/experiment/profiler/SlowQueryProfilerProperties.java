@@ -0,0 +1,31 @@
+package nl.cofx.mongo.indices.experiment.profiler;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The databases whose slow queries are captured by {@link SlowQueryProfiler}.
+ */
+@ConfigurationProperties(prefix = "slow-query-profiler")
+@Data
+public class SlowQueryProfilerProperties {
+
+    private boolean enabled;
+
+    private List<String> databases = new ArrayList<>(List.of("test"));
+
+    /**
+     * Operations that take longer than this number of milliseconds are written to {@code system.profile}.
+     * MongoDB applies this threshold to all databases of a server, including those that aren't profiled.
+     */
+    private int slowMs = 100;
+
+    /**
+     * How long to wait before following {@code system.profile} again after it's empty or after a failure.
+     */
+    private Duration retryDelay = Duration.ofSeconds(1);
+}
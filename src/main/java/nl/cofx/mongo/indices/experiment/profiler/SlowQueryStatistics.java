@@ -0,0 +1,36 @@
+package nl.cofx.mongo.indices.experiment.profiler;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * What the profiler recorded for the slow queries with the same fingerprint, at the time the statistics were requested.
+ * Percentiles are upper bounds, see {@link LatencyHistogram}.
+ */
+@Value
+public class SlowQueryStatistics {
+
+    QueryFingerprint fingerprint;
+    long count;
+    long totalMillis;
+    long p50Millis;
+    long p95Millis;
+    long p99Millis;
+    long maxMillis;
+
+    /**
+     * Number of executions that scanned the whole collection instead of using an index.
+     */
+    long collectionScans;
+
+    /**
+     * Per plan summary of the executions that used an index, such as {@code IXSCAN { randomLong: 1 }},
+     * the number of executions.
+     */
+    Map<String, Long> indexesUsed;
+
+    public double getMeanMillis() {
+        return count == 0 ? 0 : (double) totalMillis / count;
+    }
+}
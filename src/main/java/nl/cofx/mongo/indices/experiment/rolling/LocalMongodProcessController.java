@@ -0,0 +1,135 @@
+package nl.cofx.mongo.indices.experiment.rolling;
+
+import com.mongodb.MongoException;
+import lombok.extern.slf4j.Slf4j;
+import nl.cofx.mongo.indices.experiment.rolling.RollingIndexBuildProperties.Member;
+import org.bson.Document;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the members of a replica set as {@code mongod} processes on this machine.
+ * <p>
+ * Members are shut down with the {@code shutdown} command, so members that weren't started by this controller
+ * can be stopped as well.
+ * The output of each process is appended to {@code mongod.log} in its data directory.
+ */
+@Slf4j
+public class LocalMongodProcessController implements MongodProcessController {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(1);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofMinutes(1);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(500);
+
+    private final String mongodBinary;
+    private final String replicaSetName;
+    private final Map<String, Process> processes = new ConcurrentHashMap<>();
+
+    public LocalMongodProcessController(String mongodBinary, String replicaSetName) {
+        this.mongodBinary = mongodBinary;
+        this.replicaSetName = replicaSetName;
+    }
+
+    @Override
+    public void startReplicaSetMember(Member member) {
+        start(member, member.getPort(), List.of("--replSet", replicaSetName));
+    }
+
+    /**
+     * Sessions are stored in a replicated collection, which can't be written to while the member runs standalone,
+     * so refreshing them is disabled.
+     */
+    @Override
+    public void startStandalone(Member member) {
+        start(member, member.getStandalonePort(), List.of("--setParameter", "disableLogicalSessionCacheRefresh=true"));
+    }
+
+    private void start(Member member, int port, List<String> extraArguments) {
+        var command = new ArrayList<>(List.of(mongodBinary,
+                "--port", String.valueOf(port),
+                "--bind_ip", member.getHost(),
+                "--dbpath", member.getDbPath()));
+        command.addAll(extraArguments);
+        log.info("Starting mongod: {}", String.join(" ", command));
+
+        try {
+            var logFile = new File(member.getDbPath(), "mongod.log");
+            var process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+                    .start();
+            processes.put(member.getHost() + ":" + port, process);
+        } catch (IOException e) {
+            throw new RollingIndexBuildFailed("Unable to start mongod for " + member.getAddress(), e);
+        }
+
+        awaitConnections(member.getHost(), port);
+    }
+
+    private static void awaitConnections(String host, int port) {
+        var deadline = Instant.now().plus(STARTUP_TIMEOUT);
+        while (true) {
+            try (var mongoClient = MemberConnections.connect(host, port)) {
+                mongoClient.getDatabase("admin").runCommand(new Document("ping", 1));
+                return;
+            } catch (MongoException e) {
+                if (Instant.now().isAfter(deadline)) {
+                    throw new RollingIndexBuildFailed("mongod on %s:%d didn't start in time".formatted(host, port), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void stop(Member member, boolean standalone) {
+        var port = standalone ? member.getStandalonePort() : member.getPort();
+        log.info("Stopping mongod on {}:{}", member.getHost(), port);
+
+        try (var mongoClient = MemberConnections.connect(member.getHost(), port)) {
+            mongoClient.getDatabase("admin").runCommand(new Document("shutdown", 1).append("timeoutSecs", 60));
+        } catch (MongoException e) {
+            // The server closes the connection while shutting down, which the driver reports as an error.
+            log.debug("Connection closed while shutting down {}:{}: {}", member.getHost(), port, e.getMessage());
+        }
+
+        var process = processes.remove(member.getHost() + ":" + port);
+        if (process == null) {
+            awaitShutdown(member.getHost(), port);
+            return;
+        }
+
+        try {
+            if (!process.waitFor(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RollingIndexBuildFailed("mongod on %s:%d didn't shut down in time".formatted(member.getHost(), port));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RollingIndexBuildFailed("Interrupted while waiting for mongod to shut down", e);
+        }
+    }
+
+    private static void awaitShutdown(String host, int port) {
+        var deadline = Instant.now().plus(SHUTDOWN_TIMEOUT);
+        while (true) {
+            try (var mongoClient = MemberConnections.connect(host, port)) {
+                mongoClient.getDatabase("admin").runCommand(new Document("ping", 1));
+            } catch (MongoException e) {
+                return;
+            }
+
+            if (Instant.now().isAfter(deadline)) {
+                throw new RollingIndexBuildFailed("mongod on %s:%d didn't shut down in time".formatted(host, port));
+            }
+            LockSupport.parkNanos(POLL_INTERVAL.toNanos());
+        }
+    }
+}
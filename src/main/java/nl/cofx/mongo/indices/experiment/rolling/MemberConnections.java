@@ -0,0 +1,18 @@
+package nl.cofx.mongo.indices.experiment.rolling;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+/**
+ * Connections to a single member of a replica set, bypassing the discovery of the other members.
+ */
+final class MemberConnections {
+
+    private MemberConnections() {
+    }
+
+    static MongoClient connect(String host, int port) {
+        return MongoClients.create("mongodb://%s:%d/?directConnection=true&serverSelectionTimeoutMS=2000"
+                .formatted(host, port));
+    }
+}
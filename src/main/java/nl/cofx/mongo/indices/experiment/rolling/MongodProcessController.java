@@ -0,0 +1,24 @@
+package nl.cofx.mongo.indices.experiment.rolling;
+
+import nl.cofx.mongo.indices.experiment.rolling.RollingIndexBuildProperties.Member;
+
+/**
+ * Starts and stops the {@code mongod} processes of the members of a replica set.
+ */
+public interface MongodProcessController {
+
+    /**
+     * Start the given member as part of the replica set, and wait until it accepts connections.
+     */
+    void startReplicaSetMember(Member member);
+
+    /**
+     * Start the given member as a standalone server on its standalone port, and wait until it accepts connections.
+     */
+    void startStandalone(Member member);
+
+    /**
+     * Shut down the given member cleanly, regardless of whether it's running standalone or as part of the replica set.
+     */
+    void stop(Member member, boolean standalone);
+}
@@ -0,0 +1,29 @@
+package nl.cofx.mongo.indices.experiment.rolling;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Provides a {@link RollingIndexBuildOrchestrator} if a replica set is configured under {@code rolling-index-build}.
+ * By default, members are restarted as processes on this machine.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "rolling-index-build", name = "replica-set-name")
+@EnableConfigurationProperties(RollingIndexBuildProperties.class)
+public class RollingIndexBuildConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MongodProcessController mongodProcessController(RollingIndexBuildProperties properties) {
+        return new LocalMongodProcessController(properties.getMongodBinary(), properties.getReplicaSetName());
+    }
+
+    @Bean
+    public RollingIndexBuildOrchestrator rollingIndexBuildOrchestrator(RollingIndexBuildProperties properties,
+            MongodProcessController mongodProcessController) {
+        return new RollingIndexBuildOrchestrator(properties, mongodProcessController);
+    }
+}
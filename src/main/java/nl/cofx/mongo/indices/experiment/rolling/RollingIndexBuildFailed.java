@@ -0,0 +1,12 @@
+package nl.cofx.mongo.indices.experiment.rolling;
+
+public class RollingIndexBuildFailed extends RuntimeException {
+
+    public RollingIndexBuildFailed(String message) {
+        super(message);
+    }
+
+    public RollingIndexBuildFailed(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
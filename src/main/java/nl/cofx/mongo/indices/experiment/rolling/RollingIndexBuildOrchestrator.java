@@ -0,0 +1,257 @@
+package nl.cofx.mongo.indices.experiment.rolling;
+
+import com.mongodb.MongoException;
+import lombok.extern.slf4j.Slf4j;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexCreationResult;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexOperations;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexSpecification;
+import nl.cofx.mongo.indices.experiment.rolling.RollingIndexBuildProperties.Member;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Builds indexes on a replica set one member at a time, following the rolling index build procedure of MongoDB.
+ * <p>
+ * Each secondary is restarted as a standalone server on a separate port, builds the indexes,
+ * and rejoins the replica set as a secondary.
+ * Once it has caught up with the primary, the next member follows.
+ * Finally, the primary steps down and is handled like the secondaries.
+ * This keeps the load of building indexes away from the member that serves writes,
+ * at the cost of running with one member less for the duration of each build.
+ * Before a member is taken out, the oplog of the primary must cover the expected build time,
+ * so that the member can catch up when it rejoins.
+ * <p>
+ * Use {@link #plan} to review the steps before running them.
+ */
+@Slf4j
+public class RollingIndexBuildOrchestrator {
+
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(1);
+    private static final int PRIMARY = 1;
+    private static final int SECONDARY = 2;
+
+    private final RollingIndexBuildProperties properties;
+    private final MongodProcessController processController;
+
+    public RollingIndexBuildOrchestrator(RollingIndexBuildProperties properties, MongodProcessController processController) {
+        this.properties = properties;
+        this.processController = processController;
+    }
+
+    /**
+     * @return the steps that build the indexes matching the given specifications on every member,
+     * ending with the member that is currently the primary
+     */
+    public List<RollingIndexBuildStep> plan(String databaseName, String collectionName,
+            List<MongoIndexSpecification> specifications) {
+        var primary = findPrimary();
+        var steps = new ArrayList<RollingIndexBuildStep>();
+        for (var member : properties.getMembers()) {
+            if (member == primary) continue;
+
+            addMemberSteps(steps, member, databaseName, collectionName, specifications);
+        }
+
+        steps.add(new RollingIndexBuildStep("Step down primary " + primary.getAddress(), () -> stepDown(primary)));
+        addMemberSteps(steps, primary, databaseName, collectionName, specifications);
+
+        return steps;
+    }
+
+    private void addMemberSteps(List<RollingIndexBuildStep> steps, Member member, String databaseName,
+            String collectionName, List<MongoIndexSpecification> specifications) {
+        var address = member.getAddress();
+        Runnable recovery = () -> restoreMember(member);
+        steps.add(new RollingIndexBuildStep("Verify that the oplog of the primary covers %s before taking %s out"
+                .formatted(properties.getExpectedBuildTime(), address),
+                this::verifyOplogWindow));
+        steps.add(new RollingIndexBuildStep("Stop " + address,
+                () -> processController.stop(member, false), recovery));
+        steps.add(new RollingIndexBuildStep("Restart %s as standalone on port %d".formatted(address, member.getStandalonePort()),
+                () -> processController.startStandalone(member), recovery));
+        steps.add(new RollingIndexBuildStep("Build indexes %s on %s".formatted(specifications, address),
+                () -> buildIndexes(member, databaseName, collectionName, specifications), recovery));
+        steps.add(new RollingIndexBuildStep("Stop standalone " + address,
+                () -> processController.stop(member, true), recovery));
+        steps.add(new RollingIndexBuildStep("Restart %s as member of %s".formatted(address, properties.getReplicaSetName()),
+                () -> processController.startReplicaSetMember(member)));
+        steps.add(new RollingIndexBuildStep("Wait until %s has caught up as secondary".formatted(address),
+                () -> awaitCaughtUpSecondary(member)));
+    }
+
+    /**
+     * Run all steps in order, stopping at the first step that fails.
+     * <p>
+     * If a member is out of the replica set when a step fails, its standalone server is stopped
+     * and it's restarted as a member of the replica set before the failure is rethrown,
+     * so that the replica set isn't left a member short.
+     */
+    public void run(String databaseName, String collectionName, List<MongoIndexSpecification> specifications) {
+        var steps = plan(databaseName, collectionName, specifications);
+        Runnable recovery = null;
+        for (var i = 0; i < steps.size(); ++i) {
+            var step = steps.get(i);
+            log.info("Rolling index build step {}/{}: {}", i + 1, steps.size(), step.getDescription());
+            try {
+                step.execute();
+            } catch (RuntimeException e) {
+                var failure = new RollingIndexBuildFailed("Rolling index build failed at step: " + step.getDescription(), e);
+                recover(recovery == null ? step.getRecovery() : recovery, failure);
+                throw failure;
+            }
+            recovery = step.getRecovery();
+        }
+        log.info("Finished rolling index build of {}", specifications);
+    }
+
+    private static void recover(Runnable recovery, RollingIndexBuildFailed failure) {
+        if (recovery == null) return;
+
+        try {
+            recovery.run();
+        } catch (RuntimeException e) {
+            log.error("Unable to restore replica set after failed rolling index build", e);
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Stopping the standalone server is attempted even if it may not be running,
+     * because a step may have failed after starting it.
+     */
+    private void restoreMember(Member member) {
+        log.warn("Restoring {} as member of {}", member.getAddress(), properties.getReplicaSetName());
+        try {
+            processController.stop(member, true);
+        } catch (RuntimeException e) {
+            log.debug("Unable to stop standalone {}: {}", member.getAddress(), e.getMessage());
+        }
+        processController.startReplicaSetMember(member);
+    }
+
+    /**
+     * A member that is out of the replica set catches up from the oplog of the primary when it rejoins,
+     * which is only possible if the oplog still contains the operations since the member left.
+     * An oplog that hasn't reached its maximum size yet keeps all operations, regardless of how old they are.
+     */
+    private void verifyOplogWindow() {
+        var primary = findPrimary();
+        try (var mongoClient = MemberConnections.connect(primary.getHost(), primary.getPort())) {
+            var local = mongoClient.getDatabase("local");
+            var stats = local.runCommand(new Document("collStats", "oplog.rs"));
+            var size = stats.get("size", Number.class).longValue();
+            var maxSize = stats.get("maxSize", Number.class).longValue();
+            if (size < maxSize) return;
+
+            var oplog = local.getCollection("oplog.rs");
+            var first = oplog.find().sort(new Document("$natural", 1)).limit(1).first();
+            var last = oplog.find().sort(new Document("$natural", -1)).limit(1).first();
+            if (first == null || last == null) return;
+
+            var window = Duration.ofSeconds(last.get("ts", BsonTimestamp.class).getTime()
+                    - first.get("ts", BsonTimestamp.class).getTime());
+            if (window.compareTo(properties.getExpectedBuildTime()) < 0) {
+                throw new RollingIndexBuildFailed("Oplog of %s covers %s, which is less than the expected build time of %s"
+                        .formatted(primary.getAddress(), window, properties.getExpectedBuildTime()));
+            }
+        }
+    }
+
+    private Member findPrimary() {
+        for (var member : properties.getMembers()) {
+            try (var mongoClient = MemberConnections.connect(member.getHost(), member.getPort())) {
+                var hello = mongoClient.getDatabase("admin").runCommand(new Document("hello", 1));
+                if (hello.getBoolean("isWritablePrimary", false)) return member;
+            } catch (MongoException e) {
+                log.warn("Unable to reach {}: {}", member.getAddress(), e.getMessage());
+            }
+        }
+
+        throw new RollingIndexBuildFailed("No primary found among " + properties.getMembers());
+    }
+
+    private void buildIndexes(Member member, String databaseName, String collectionName,
+            List<MongoIndexSpecification> specifications) {
+        try (var mongoClient = MemberConnections.connect(member.getHost(), member.getStandalonePort())) {
+            var results = new MongoIndexOperations(databaseName, collectionName, mongoClient).createIndexes(specifications);
+            var failures = results.stream()
+                    .filter(MongoIndexCreationResult::isFailure)
+                    .toList();
+            if (!failures.isEmpty()) {
+                throw new RollingIndexBuildFailed("Failed to create indexes on %s: %s".formatted(member.getAddress(), failures));
+            }
+        }
+    }
+
+    private void stepDown(Member primary) {
+        try (var mongoClient = MemberConnections.connect(primary.getHost(), primary.getPort())) {
+            mongoClient.getDatabase("admin").runCommand(new Document("replSetStepDown", 60));
+        } catch (MongoException e) {
+            // Older servers close all connections when stepping down.
+            log.debug("Connection closed while stepping down {}: {}", primary.getAddress(), e.getMessage());
+        }
+
+        awaitUntil(() -> {
+            var newPrimary = findPrimaryOrNull();
+            return newPrimary != null && newPrimary != primary;
+        }, "another member to become primary");
+    }
+
+    private Member findPrimaryOrNull() {
+        try {
+            return findPrimary();
+        } catch (RollingIndexBuildFailed e) {
+            return null;
+        }
+    }
+
+    private void awaitCaughtUpSecondary(Member member) {
+        awaitUntil(() -> isCaughtUpSecondary(member), member.getAddress() + " to catch up as secondary");
+    }
+
+    private boolean isCaughtUpSecondary(Member member) {
+        Document status;
+        try (var mongoClient = MemberConnections.connect(member.getHost(), member.getPort())) {
+            status = mongoClient.getDatabase("admin").runCommand(new Document("replSetGetStatus", 1));
+        } catch (MongoException e) {
+            log.debug("Unable to get replica set status from {}: {}", member.getAddress(), e.getMessage());
+            return false;
+        }
+
+        Date primaryOptime = null;
+        Date ownOptime = null;
+        var ownState = 0;
+        for (var memberStatus : status.getList("members", Document.class)) {
+            var state = memberStatus.get("state", Number.class).intValue();
+            if (memberStatus.getBoolean("self", false)) {
+                ownState = state;
+                ownOptime = memberStatus.getDate("optimeDate");
+            } else if (state == PRIMARY) {
+                primaryOptime = memberStatus.getDate("optimeDate");
+            }
+        }
+
+        if (ownState != SECONDARY || primaryOptime == null || ownOptime == null) return false;
+
+        var lag = Duration.ofMillis(primaryOptime.getTime() - ownOptime.getTime());
+        return lag.compareTo(properties.getMaxCatchUpLag()) <= 0;
+    }
+
+    private void awaitUntil(BooleanSupplier condition, String description) {
+        var deadline = Instant.now().plus(properties.getCatchUpTimeout());
+        while (!condition.getAsBoolean()) {
+            if (Instant.now().isAfter(deadline)) {
+                throw new RollingIndexBuildFailed("Timed out waiting for " + description);
+            }
+            LockSupport.parkNanos(POLL_INTERVAL.toNanos());
+        }
+    }
+}
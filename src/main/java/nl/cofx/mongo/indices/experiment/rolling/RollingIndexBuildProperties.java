@@ -0,0 +1,60 @@
+package nl.cofx.mongo.indices.experiment.rolling;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The replica set on which {@link RollingIndexBuildOrchestrator} builds indexes one member at a time.
+ */
+@ConfigurationProperties(prefix = "rolling-index-build")
+@Data
+public class RollingIndexBuildProperties {
+
+    private String replicaSetName;
+
+    /**
+     * Path to the {@code mongod} binary used to restart members, for replica sets running on this machine.
+     */
+    private String mongodBinary = "mongod";
+
+    private List<Member> members = new ArrayList<>();
+
+    /**
+     * How long building the indexes on a single member is expected to take.
+     * A member is only taken out of the replica set if the oplog of the primary covers at least this long.
+     */
+    private Duration expectedBuildTime = Duration.ofHours(1);
+
+    /**
+     * How long a member may take to come back as a secondary that has caught up with the primary after its build.
+     */
+    private Duration catchUpTimeout = Duration.ofMinutes(10);
+
+    /**
+     * How far a member may be behind the primary to be considered caught up.
+     */
+    private Duration maxCatchUpLag = Duration.ofSeconds(10);
+
+    @Data
+    public static class Member {
+
+        private String host = "localhost";
+        private int port;
+
+        /**
+         * Port on which the member runs while it's restarted as a standalone server,
+         * which must differ from its usual port to keep the rest of the replica set and clients away from it.
+         */
+        private int standalonePort;
+
+        private String dbPath;
+
+        public String getAddress() {
+            return host + ":" + port;
+        }
+    }
+}
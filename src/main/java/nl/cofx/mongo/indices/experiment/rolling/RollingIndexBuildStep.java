@@ -0,0 +1,40 @@
+package nl.cofx.mongo.indices.experiment.rolling;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.Value;
+
+/**
+ * A single step of a rolling index build, such as restarting a member or building its indexes.
+ */
+@Value
+public class RollingIndexBuildStep {
+
+    String description;
+
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Runnable action;
+
+    /**
+     * Brings the replica set back to full strength if the rolling build stops after this step,
+     * or {@code null} if no member is out of the replica set after this step.
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Runnable recovery;
+
+    public RollingIndexBuildStep(String description, Runnable action) {
+        this(description, action, null);
+    }
+
+    public RollingIndexBuildStep(String description, Runnable action, Runnable recovery) {
+        this.description = description;
+        this.action = action;
+        this.recovery = recovery;
+    }
+
+    public void execute() {
+        action.run();
+    }
+}
@@ -17,20 +17,16 @@ import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.util.StopWatch;
 
-import java.security.SecureRandom;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 @Slf4j
 @SpringBootTest
 class ExperimentApplicationTest {
 
-    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final long SEED = 20230401L;
     private static final String DATABASE_NAME = "test";
     private static final String COLLECTION_NAME = "randomData";
     private static final String INDEX_NAME = "testIndex";
@@ -72,24 +68,15 @@ class ExperimentApplicationTest {
 
     @Test
     void savesEntity() {
-        repository.save(randomData());
+        repository.save(new RandomDataGenerator(System.nanoTime()).get());
     }
 
     @Test
     @Disabled
     void savesEntities() {
-        var batchSize = 100;
-        var totalNumberOfEntities = 1_000_000;
-        IntStream.range(0, totalNumberOfEntities / batchSize).forEach(batchNumber -> {
-            var entities = Stream.generate(ExperimentApplicationTest::randomData)
-                    .limit(batchSize)
-                    .toList();
-            repository.saveAll(entities);
-
-            if (batchNumber % 500 == 0) {
-                log.info("Inserting batch number {}", batchNumber);
-            }
-        });
+        var loader = new RandomDataBulkLoader(mongoClient, DATABASE_NAME, COLLECTION_NAME, 10_000, 4);
+        var result = loader.load(1_000_000, new RandomDataGenerator(SEED));
+        log.info("Documents inserted per second: {}", Math.round(result.getDocumentsPerSecond()));
     }
 
     @Test
@@ -278,24 +265,4 @@ class ExperimentApplicationTest {
         mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).createIndex(keys, indexOptions);
         log.info("Created index again");
     }
-
-    private static RandomData randomData() {
-        return RandomData.builder()
-                .randomString(randomString())
-                .randomLong(randomLong())
-                .randomBoolean(randomBoolean())
-                .build();
-    }
-
-    private static boolean randomBoolean() {
-        return SECURE_RANDOM.nextBoolean();
-    }
-
-    private static String randomString() {
-        return UUID.randomUUID().toString();
-    }
-
-    private static long randomLong() {
-        return SECURE_RANDOM.nextLong();
-    }
 }
@@ -0,0 +1,33 @@
+package nl.cofx.mongo.indices.experiment;
+
+import org.junit.jupiter.api.AfterAll;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Base class of tests that modify the data of the application,
+ * which run against their own instance of MongoDB instead of the local one.
+ * Testcontainers starts MongoDB as a single-member replica set, which supports change streams.
+ * <p>
+ * The container is started when the application context of a test class is created and stopped after its tests.
+ * The context is closed as well, so that the next test class gets a context connected to a new container.
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+abstract class MongoContainerTest {
+
+    private static final MongoDBContainer MONGO_DB_CONTAINER = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"));
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        MONGO_DB_CONTAINER.start();
+        registry.add("spring.data.mongodb.uri", MONGO_DB_CONTAINER::getReplicaSetUrl);
+    }
+
+    @AfterAll
+    static void stopMongoDBContainer() {
+        MONGO_DB_CONTAINER.stop();
+    }
+}
@@ -0,0 +1,66 @@
+package nl.cofx.mongo.indices.experiment;
+
+import com.mongodb.client.MongoClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataMongoTest
+class RandomDataBulkLoaderTest extends MongoContainerTest {
+
+    private static final String COLLECTION_NAME = "randomData";
+
+    @Autowired
+    private MongoClient mongoClient;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RandomDataRepository repository;
+
+    @BeforeEach
+    void dropCollection() {
+        mongoTemplate.dropCollection(COLLECTION_NAME);
+    }
+
+    @Test
+    void insertsRequestedNumberOfDocuments() {
+        var counter = new AtomicLong();
+        var loader = new RandomDataBulkLoader(mongoClient, mongoTemplate.getDb().getName(), COLLECTION_NAME, 1_000, 3);
+
+        var result = loader.load(10_001, () -> randomData(counter.incrementAndGet()));
+
+        assertThat(result.getDocuments()).isEqualTo(10_001);
+        assertThat(result.getDocumentsPerSecond()).isPositive();
+        assertThat(mongoTemplate.getCollection(COLLECTION_NAME).countDocuments()).isEqualTo(10_001);
+    }
+
+    @Test
+    void writesDocumentsReadableByRepository() {
+        var loader = new RandomDataBulkLoader(mongoClient, mongoTemplate.getDb().getName(), COLLECTION_NAME, 10, 1);
+
+        loader.load(1, () -> randomData(42));
+
+        var randomData = repository.findByRandomStringAndRandomLongAndRandomBoolean("string-42", 42, true);
+
+        assertThat(randomData.getId()).isNotNull();
+        assertThat(randomData).usingRecursiveComparison()
+                .ignoringFields("id")
+                .isEqualTo(randomData(42));
+    }
+
+    private static RandomData randomData(long value) {
+        return RandomData.builder()
+                .randomString("string-" + value)
+                .randomLong(value)
+                .randomBoolean(value % 2 == 0)
+                .build();
+    }
+}
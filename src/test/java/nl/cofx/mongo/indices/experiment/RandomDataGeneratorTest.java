@@ -0,0 +1,79 @@
+package nl.cofx.mongo.indices.experiment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RandomDataGeneratorTest {
+
+    private static final long SEED = 42;
+
+    @Test
+    void generatesSameDataForSameSeed() {
+        var first = Stream.generate(new RandomDataGenerator(SEED)).limit(100).toList();
+        var second = Stream.generate(new RandomDataGenerator(SEED)).limit(100).toList();
+
+        assertThat(first).isEqualTo(second);
+    }
+
+    @Test
+    void generatesSameDataForSameSplit() {
+        var first = new RandomDataGenerator(SEED);
+        var second = new RandomDataGenerator(SEED);
+
+        assertThat(first.split().get()).isEqualTo(second.split().get());
+        assertThat(first.split().get()).isNotEqualTo(first.split().get());
+    }
+
+    @Test
+    void generatesStringsFormattedAsUuids() {
+        var randomString = new RandomDataGenerator(SEED).nextString();
+
+        assertThat(UUID.fromString(randomString).toString()).isEqualTo(randomString);
+        assertThat(UUID.fromString(randomString).version()).isEqualTo(4);
+    }
+
+    @Test
+    void formatsUuidLikeUuidClass() {
+        var uuid = UUID.randomUUID();
+
+        assertThat(RandomDataGenerator.uuid(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()))
+                .isEqualTo(uuid.toString());
+    }
+
+    @Test
+    void limitsCardinality() {
+        var distribution = RandomDataDistribution.builder()
+                .stringCardinality(10)
+                .longCardinality(5)
+                .longSkew(2)
+                .build();
+        var generator = new RandomDataGenerator(SEED, distribution);
+
+        var strings = new HashSet<String>();
+        var longs = new HashSet<Long>();
+        for (var i = 0; i < 10_000; ++i) {
+            strings.add(generator.nextString());
+            longs.add(generator.nextLong());
+        }
+
+        assertThat(strings).hasSize(10);
+        assertThat(longs).hasSize(5);
+    }
+
+    @Test
+    void respectsTrueRatio() {
+        var distribution = RandomDataDistribution.builder()
+                .booleanTrueRatio(0.1)
+                .build();
+        var generator = new RandomDataGenerator(SEED, distribution);
+
+        var trueCount = Stream.generate(generator::nextBoolean).limit(10_000).filter(value -> value).count();
+
+        assertThat(trueCount).isBetween(800L, 1_200L);
+    }
+}
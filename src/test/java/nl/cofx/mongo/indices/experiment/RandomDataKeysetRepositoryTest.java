@@ -0,0 +1,97 @@
+package nl.cofx.mongo.indices.experiment;
+
+import nl.cofx.mongo.indices.experiment.keyset.KeysetRequest;
+import nl.cofx.mongo.indices.experiment.keyset.KeysetSlice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataMongoTest
+class RandomDataKeysetRepositoryTest extends MongoContainerTest {
+
+    private static final int SLICE_SIZE = 10;
+
+    @Autowired
+    private RandomDataRepository repository;
+
+    private List<RandomData> randomData;
+
+    @BeforeEach
+    void insertRandomData() {
+        repository.deleteAll();
+
+        var distribution = RandomDataDistribution.builder()
+                .stringCardinality(3)
+                .longCardinality(4)
+                .booleanTrueRatio(1)
+                .build();
+        randomData = repository.saveAll(Stream.generate(new RandomDataGenerator(42, distribution)).limit(35).toList());
+    }
+
+    @Test
+    void returnsAllDocumentsWithEqualValueInSlices() {
+        var slices = readAll(request -> repository.findAllByRandomBoolean(true, request));
+
+        assertThat(slices).hasSize(4);
+        assertThat(slices).extracting(slice -> slice.getContent().size()).containsExactly(10, 10, 10, 5);
+        assertThat(content(slices)).containsExactlyInAnyOrderElementsOf(randomData);
+    }
+
+    @Test
+    void returnsAllDocumentsWithGreaterValueInOrder() {
+        var minimum = randomData.stream().mapToLong(RandomData::getRandomLong).min().orElseThrow();
+        var expected = randomData.stream()
+                .filter(data -> data.getRandomLong() > minimum)
+                .toList();
+
+        var content = content(readAll(request -> repository.findAllByRandomLongGreaterThan(minimum, request)));
+
+        assertThat(content).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(content).isSortedAccordingTo((first, second) -> Long.compare(first.getRandomLong(), second.getRandomLong()));
+    }
+
+    @Test
+    void returnsAllDocumentsWithEqualStringInSlices() {
+        var value = randomData.get(0).getRandomString();
+        var expected = randomData.stream()
+                .filter(data -> data.getRandomString().equals(value))
+                .toList();
+
+        var content = content(readAll(request -> repository.findAllByRandomString(value, request)));
+
+        assertThat(content).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void rejectsInvalidToken() {
+        assertThatThrownBy(() -> repository.findAllByRandomLong(0, KeysetRequest.after("not a token", SLICE_SIZE)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<KeysetSlice<RandomData>> readAll(Function<KeysetRequest, KeysetSlice<RandomData>> query) {
+        var slices = new ArrayList<KeysetSlice<RandomData>>();
+        var request = KeysetRequest.first(SLICE_SIZE);
+        while (request != null) {
+            var slice = query.apply(request);
+            slices.add(slice);
+            request = slice.nextRequest();
+        }
+
+        return slices;
+    }
+
+    private static List<RandomData> content(List<KeysetSlice<RandomData>> slices) {
+        return slices.stream()
+                .flatMap(slice -> slice.getContent().stream())
+                .toList();
+    }
+}
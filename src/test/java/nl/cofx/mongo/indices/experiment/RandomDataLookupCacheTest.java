@@ -0,0 +1,141 @@
+package nl.cofx.mongo.indices.experiment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataMongoTest
+class RandomDataLookupCacheTest extends MongoContainerTest {
+
+    @Autowired
+    private RandomDataRepository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RandomDataLookupCache lookupCache;
+    private RandomData randomData;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        repository.deleteAll();
+        randomData = repository.save(new RandomDataGenerator(42).get());
+
+        var properties = new RandomDataLookupCacheProperties();
+        properties.setEnabled(true);
+        lookupCache = new RandomDataLookupCache(repository, mongoTemplate, properties, meterRegistry);
+        lookupCache.start();
+        await(lookupCache::isWatching);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lookupCache.close();
+    }
+
+    @Test
+    void servesRepeatedLookupsFromCache() {
+        var first = lookupCache.findByRandomStringAndRandomLong(randomData.getRandomString(), randomData.getRandomLong());
+        var second = lookupCache.findByRandomStringAndRandomLong(randomData.getRandomString(), randomData.getRandomLong());
+
+        assertThat(first).isEqualTo(randomData);
+        assertThat(second).isSameAs(first);
+        assertThat(getCount("hit")).isEqualTo(1);
+        assertThat(getCount("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatesCachedDocument_givenUpdate() throws InterruptedException {
+        lookupCache.findByRandomStringAndRandomLongAndRandomBoolean(randomData.getRandomString(),
+                randomData.getRandomLong(), randomData.isRandomBoolean());
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(randomData.getId())),
+                Update.update("randomBoolean", !randomData.isRandomBoolean()), RandomData.class);
+
+        await(() -> lookupCache.findByRandomStringAndRandomLongAndRandomBoolean(randomData.getRandomString(),
+                randomData.getRandomLong(), randomData.isRandomBoolean()) == null);
+    }
+
+    @Test
+    void invalidatesAllLookupsOfDocument_givenDelete() throws InterruptedException {
+        lookupCache.findByRandomStringAndRandomLong(randomData.getRandomString(), randomData.getRandomLong());
+        lookupCache.findByRandomStringAndRandomLongAndRandomBoolean(randomData.getRandomString(),
+                randomData.getRandomLong(), randomData.isRandomBoolean());
+
+        repository.deleteById(randomData.getId());
+
+        await(() -> lookupCache.findByRandomStringAndRandomLong(randomData.getRandomString(),
+                randomData.getRandomLong()) == null);
+        await(() -> lookupCache.findByRandomStringAndRandomLongAndRandomBoolean(randomData.getRandomString(),
+                randomData.getRandomLong(), randomData.isRandomBoolean()) == null);
+    }
+
+    @Test
+    void invalidatesCachedAbsence_givenInsert() throws InterruptedException {
+        var missing = new RandomDataGenerator(43).get();
+        assertThat(lookupCache.findByRandomStringAndRandomLong(missing.getRandomString(), missing.getRandomLong())).isNull();
+
+        repository.save(missing);
+
+        await(() -> lookupCache.findByRandomStringAndRandomLong(missing.getRandomString(), missing.getRandomLong()) != null);
+    }
+
+    @Test
+    void keepsInvalidating_givenDocumentWithFieldsOfOtherTypes() throws InterruptedException {
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(RandomData.class))
+                .insertOne(new Document("randomString", 42).append("randomLong", 42L).append("randomBoolean", "yes"));
+        var missing = new RandomDataGenerator(43).get();
+        assertThat(lookupCache.findByRandomStringAndRandomLong(missing.getRandomString(), missing.getRandomLong())).isNull();
+
+        repository.save(missing);
+
+        await(() -> lookupCache.findByRandomStringAndRandomLong(missing.getRandomString(), missing.getRandomLong()) != null);
+        assertThat(lookupCache.isWatching()).isTrue();
+    }
+
+    @Test
+    void passesLookupsThrough_givenDisabledCache() {
+        var disabledCache = new RandomDataLookupCache(repository, mongoTemplate, new RandomDataLookupCacheProperties(),
+                new SimpleMeterRegistry());
+        disabledCache.start();
+
+        disabledCache.findByRandomStringAndRandomLong(randomData.getRandomString(), randomData.getRandomLong());
+        var found = disabledCache.findByRandomStringAndRandomLong(randomData.getRandomString(), randomData.getRandomLong());
+
+        assertThat(disabledCache.isEnabled()).isFalse();
+        assertThat(found).isEqualTo(randomData);
+        assertThat(found).isNotSameAs(disabledCache.findByRandomStringAndRandomLong(randomData.getRandomString(),
+                randomData.getRandomLong()));
+    }
+
+    private double getCount(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", RandomDataLookupCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+    private static void await(Supplier<Boolean> condition) throws InterruptedException {
+        var deadline = Instant.now().plusSeconds(10);
+        while (!condition.get()) {
+            assertThat(Instant.now()).isBefore(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
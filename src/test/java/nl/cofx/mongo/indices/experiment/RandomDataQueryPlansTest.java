@@ -0,0 +1,80 @@
+package nl.cofx.mongo.indices.experiment;
+
+import nl.cofx.mongo.indices.experiment.explain.QueryPlanInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+@DataMongoTest
+@Import({ QueryPlanInspector.class, RandomDataQueryPlans.class })
+class RandomDataQueryPlansTest extends MongoContainerTest {
+
+    private static final double MAX_EXAMINED_TO_RETURNED_RATIO = 10;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RandomDataQueryPlans randomDataQueryPlans;
+
+    @Autowired
+    private RandomDataRepository repository;
+
+    @BeforeEach
+    void insertRandomData() {
+        repository.deleteAll();
+        repository.saveAll(Stream.generate(new RandomDataGenerator(42)).limit(1_000).toList());
+
+        var indexOps = mongoTemplate.indexOps(RandomData.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(RandomData.class)
+                .forEach(indexOps::ensureIndex);
+    }
+
+    @Test
+    void usesIndexForEveryQuery() {
+        var queryPlans = randomDataQueryPlans.explainAll();
+
+        assertThat(queryPlans).allSatisfy((name, queryPlan) -> assertThat(queryPlan.isCollectionScan()).isFalse());
+    }
+
+    @Test
+    void explainsEveryRepositoryMethod() {
+        var queryPlans = randomDataQueryPlans.explainAll();
+
+        assertThat(queryPlans).containsKeys(Arrays.stream(RandomDataRepository.class.getDeclaredMethods())
+                .map(Method::getName)
+                .toArray(String[]::new));
+    }
+
+    @Test
+    void examinesFewDocumentsPerDocumentReturned() {
+        assertThatCode(() -> randomDataQueryPlans.verifyAll(MAX_EXAMINED_TO_RETURNED_RATIO)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void answersKeyQueriesFromIndex() {
+        assertThatCode(() -> randomDataQueryPlans.verifyCovered()).doesNotThrowAnyException();
+    }
+
+    @Test
+    void returnsOnlyKeyFields() {
+        var randomData = repository.save(new RandomDataGenerator(43).get());
+        var key = new RandomDataKey(randomData.getRandomString(), randomData.getRandomLong());
+
+        assertThat(repository.findKeyByRandomStringAndRandomLong(randomData.getRandomString(), randomData.getRandomLong()))
+                .isEqualTo(key);
+        assertThat(repository.findKeysByRandomString(randomData.getRandomString())).containsExactly(key);
+    }
+}
@@ -0,0 +1,80 @@
+package nl.cofx.mongo.indices.experiment;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataMongoTest
+@Import(RandomDataStreams.class)
+class RandomDataStreamsTest extends MongoContainerTest {
+
+    private static final RandomDataCursorOptions SMALL_BATCHES = RandomDataCursorOptions.builder()
+            .batchSize(100)
+            .noCursorTimeout(true)
+            .build();
+    private static final Duration NO_EVENT_TIMEOUT = Duration.ofMillis(200);
+
+    @Autowired
+    private RandomDataRepository repository;
+
+    @Autowired
+    private RandomDataStreams randomDataStreams;
+
+    private List<RandomData> randomData;
+
+    @BeforeEach
+    void insertRandomData() {
+        repository.deleteAll();
+        randomData = repository.saveAll(Stream.generate(new RandomDataGenerator(42)).limit(1_050).toList());
+    }
+
+    @Test
+    void streamsAllDocuments() {
+        try (var stream = randomDataStreams.streamAll(SMALL_BATCHES)) {
+            assertThat(stream.toList()).containsExactlyInAnyOrderElementsOf(randomData);
+        }
+    }
+
+    @Test
+    void streamsMatchingDocuments() {
+        try (var stream = randomDataStreams.streamAllByRandomLongGreaterThan(0, SMALL_BATCHES)) {
+            assertThat(stream.toList()).containsExactlyInAnyOrderElementsOf(positiveRandomLongs());
+        }
+    }
+
+    @Test
+    void emitsAllDocuments() {
+        assertThat(randomDataStreams.findAll(SMALL_BATCHES).collectList().block())
+                .containsExactlyInAnyOrderElementsOf(randomData);
+    }
+
+    @Test
+    void emitsMatchingDocumentsOnDemand() {
+        StepVerifier.create(randomDataStreams.findAllByRandomLongGreaterThan(0, SMALL_BATCHES), 0)
+                .expectSubscription()
+                .expectNoEvent(NO_EVENT_TIMEOUT)
+                .thenRequest(10)
+                .recordWith(ArrayList::new)
+                .expectNextCount(10)
+                .consumeRecordedWith(emitted -> assertThat(positiveRandomLongs()).containsAll(emitted))
+                .expectNoEvent(NO_EVENT_TIMEOUT)
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    private List<RandomData> positiveRandomLongs() {
+        return randomData.stream()
+                .filter(data -> data.getRandomLong() > 0)
+                .toList();
+    }
+}
@@ -0,0 +1,134 @@
+package nl.cofx.mongo.indices.experiment.advisor;
+
+import nl.cofx.mongo.indices.experiment.RandomDataRepository;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexKeyPattern;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class IndexAdvisorTest {
+
+    private static final String NAMESPACE = "test.randomData";
+    private static final FieldCardinalities CARDINALITIES = new FieldCardinalities(1_000_000, Map.of(
+            "randomString", 0.000_001,
+            "randomLong", 0.000_002,
+            "randomBoolean", 0.5));
+
+    private final QueryShapeExtractor queryShapeExtractor = new QueryShapeExtractor(new MongoMappingContext());
+
+    @Test
+    void derivesShapesFromRepositoryMethods() {
+        var shapes = queryShapeExtractor.fromRepository(RandomDataRepository.class);
+
+        assertThat(shapes).anySatisfy(shape -> {
+            assertThat(shape.getSource()).isEqualTo("RandomDataRepository.findAllByRandomLongGreaterThan");
+            assertThat(shape.getEqualityFields()).isEmpty();
+            assertThat(shape.getRangeFields()).containsExactly("randomLong");
+        });
+        assertThat(shapes).anySatisfy(shape -> {
+            assertThat(shape.getSource()).isEqualTo("RandomDataRepository.findKeyByRandomStringAndRandomLong");
+            assertThat(shape.getEqualityFields()).containsExactlyInAnyOrder("randomString", "randomLong");
+        });
+    }
+
+    @Test
+    void proposesMinimalSetOfIndexesForRepository() {
+        var shapes = queryShapeExtractor.fromRepository(RandomDataRepository.class);
+
+        var candidates = IndexAdvisor.propose(shapes, CARDINALITIES);
+
+        assertThat(candidates).extracting(candidate -> candidate.getSpecification().getKeyPattern())
+                .containsExactlyInAnyOrder(
+                        MongoIndexKeyPattern.parse("{ randomString: 1, randomLong: 1, randomBoolean: 1 }"),
+                        MongoIndexKeyPattern.parse("{ randomLong: 1 }"),
+                        MongoIndexKeyPattern.parse("{ randomBoolean: 1 }"));
+        assertThat(candidates.get(0).getImprovementFactor()).isGreaterThan(1000);
+    }
+
+    @Test
+    void assignsQueriesToIndexesProvidingTheirSort() {
+        var sortedByString = QueryShapeExtractor.fromFilter(
+                Document.parse("{ randomBoolean: true }"), Document.parse("{ randomString: 1 }"), "byString", 1);
+        var sortedByLong = QueryShapeExtractor.fromFilter(
+                Document.parse("{ randomBoolean: true }"), Document.parse("{ randomLong: 1 }"), "byLong", 1);
+
+        var candidates = IndexAdvisor.propose(List.of(sortedByString, sortedByLong), CARDINALITIES);
+
+        assertThat(candidates).hasSize(2).allSatisfy(candidate -> assertThat(candidate.getServedQueries()).hasSize(1));
+        assertThat(candidates).anySatisfy(candidate -> {
+            assertThat(candidate.getSpecification().getKeyPattern())
+                    .isEqualTo(MongoIndexKeyPattern.parse("{ randomBoolean: 1, randomString: 1 }"));
+            assertThat(candidate.getServedQueries()).containsExactly(sortedByString);
+        });
+    }
+
+    @Test
+    void providesSort_givenSortFieldsFollowingEqualityFieldsInSameOrReversedDirection() {
+        var shape = QueryShapeExtractor.fromFilter(
+                Document.parse("{ randomBoolean: true }"), Document.parse("{ randomString: 1, randomLong: -1 }"), "test", 1);
+
+        assertThat(IndexAdvisor.providesSort(
+                MongoIndexKeyPattern.parse("{ randomBoolean: 1, randomString: 1, randomLong: -1 }"), shape)).isTrue();
+        assertThat(IndexAdvisor.providesSort(
+                MongoIndexKeyPattern.parse("{ randomString: -1, randomLong: 1 }"), shape)).isTrue();
+        assertThat(IndexAdvisor.providesSort(
+                MongoIndexKeyPattern.parse("{ randomBoolean: 1, randomString: 1, randomLong: 1 }"), shape)).isFalse();
+        assertThat(IndexAdvisor.providesSort(
+                MongoIndexKeyPattern.parse("{ randomBoolean: 1, randomLong: -1 }"), shape)).isFalse();
+    }
+
+    @Test
+    void ordersFieldsByEqualitySortRange() {
+        var shape = QueryShapeExtractor.fromFilter(
+                Document.parse("{ randomLong: { $gt: 0 }, randomBoolean: true }"),
+                Document.parse("{ randomString: -1 }"), "test", 1);
+
+        assertThat(IndexAdvisor.getKeys(shape, CARDINALITIES).toJson())
+                .isEqualTo("{\"randomBoolean\": 1, \"randomString\": -1, \"randomLong\": 1}");
+    }
+
+    @Test
+    void estimatesKeysExaminedFromLeadingFields() {
+        var shape = new QueryShape(Set.of("randomBoolean"), new Document(), Set.of("randomLong"), "test", 1);
+
+        var usingRange = IndexAdvisor.estimateKeysExamined(
+                MongoIndexKeyPattern.parse("{ randomBoolean: 1, randomLong: 1 }"), shape, CARDINALITIES);
+        var skippingRange = IndexAdvisor.estimateKeysExamined(
+                MongoIndexKeyPattern.parse("{ randomBoolean: 1, randomString: 1, randomLong: 1 }"), shape, CARDINALITIES);
+        var unusable = IndexAdvisor.estimateKeysExamined(
+                MongoIndexKeyPattern.parse("{ randomString: 1 }"), shape, CARDINALITIES);
+
+        assertThat(usingRange).isEqualTo(1_000_000 * 0.5 / 3, offset(1.0));
+        assertThat(skippingRange).isEqualTo(500_000);
+        assertThat(unusable).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void combinesProfiledQueriesWithSameShape() {
+        var entries = List.of(
+                profileEntry("{ find: 'randomData', filter: { randomLong: { $gt: 5 } }, sort: { randomLong: 1 } }"),
+                profileEntry("{ find: 'randomData', filter: { randomLong: { $gt: 7 } }, sort: { randomLong: 1 } }"),
+                profileEntry("{ count: 'randomData', query: { randomString: 'a' } }"),
+                profileEntry("{ getMore: 1, collection: 'randomData' }"));
+
+        var shapes = queryShapeExtractor.fromProfile(entries, NAMESPACE);
+
+        assertThat(shapes).hasSize(2);
+        assertThat(shapes.get(0).getWeight()).isEqualTo(2);
+        assertThat(shapes.get(0).getSortFields()).containsExactly("randomLong");
+        assertThat(shapes.get(1).getEqualityFields()).containsExactly("randomString");
+    }
+
+    private static Document profileEntry(String command) {
+        return new Document("op", "query")
+                .append("ns", NAMESPACE)
+                .append("command", Document.parse(command));
+    }
+}
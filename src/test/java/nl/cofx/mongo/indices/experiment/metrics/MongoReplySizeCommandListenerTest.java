@@ -0,0 +1,73 @@
+package nl.cofx.mongo.indices.experiment.metrics;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoReplySizeCommandListenerTest {
+
+    private static final String DATABASE_NAME = "mongo-metrics-test";
+    private static final String COLLECTION_NAME = "collection";
+
+    private final MongoDBContainer mongoDBContainer = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MongoClient mongoClient;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBContainer.start();
+
+        mongoClient = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongoDBContainer.getConnectionString()))
+                .addCommandListener(new MongoReplySizeCommandListener(meterRegistry))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoClient.close();
+        mongoDBContainer.stop();
+    }
+
+    @Test
+    void recordsReplySizePerCommandAndCollection() {
+        var collection = mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME);
+        collection.insertMany(IntStream.range(0, 100)
+                .mapToObj(i -> new Document("value", "x".repeat(100)))
+                .toList());
+
+        collection.find().into(new ArrayList<>());
+
+        var summary = meterRegistry.get(MongoReplySizeCommandListener.SUMMARY_NAME)
+                .tag("command", "find")
+                .tag("collection", COLLECTION_NAME)
+                .summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isGreaterThan(100 * 100);
+    }
+
+    @Test
+    void determinesSizeOfEncodedDocuments() {
+        var document = BsonDocument.parse("{ value: 'x' }");
+
+        assertThat(MongoReplySizeCommandListener.getSize(document))
+                .isEqualTo(new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().remaining());
+    }
+}
@@ -0,0 +1,121 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoIndexBuildCoordinatorTest {
+
+    private static final String DATABASE_NAME = "mongo-index-test";
+    private static final String COLLECTION_NAME = "collection";
+    private static final MongoIndexSpecification SPECIFICATION = MongoIndexSpecification.builder()
+            .name("name")
+            .definition("{ first: 1, second: 1 }")
+            .build();
+
+    private final MongoDBContainer mongoDBContainer = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"));
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    private MongoClient mongoClient;
+    private MongoIndexOperations mongoIndexOperations;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBContainer.start();
+
+        mongoClient = MongoClients.create(mongoDBContainer.getConnectionString());
+        mongoIndexOperations = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (var closeable : closeables) {
+            closeable.close();
+        }
+        mongoDBContainer.stop();
+    }
+
+    @Test
+    void buildsIndexesOnlyOnce_givenConcurrentInstances() throws Exception {
+        var first = createCoordinator("first", Duration.ofSeconds(30));
+        var second = createCoordinator("second", Duration.ofSeconds(30));
+
+        var firstCompletion = first.ensureIndexes(List.of(SPECIFICATION));
+        var secondCompletion = second.ensureIndexes(List.of(SPECIFICATION));
+        var outcomes = List.of(
+                firstCompletion.get(30, TimeUnit.SECONDS).getOutcome(),
+                secondCompletion.get(30, TimeUnit.SECONDS).getOutcome());
+
+        assertThat(outcomes).containsOnlyOnce(MongoIndexBuildCoordinationResult.Outcome.BUILT);
+        assertThat(mongoIndexOperations.findIndex(SPECIFICATION)).isNotNull();
+    }
+
+    @Test
+    void doesNotBuild_givenExistingIndexes() throws Exception {
+        mongoIndexOperations.createIndex(SPECIFICATION);
+
+        var result = createCoordinator("first", Duration.ofSeconds(30))
+                .ensureIndexes(List.of(SPECIFICATION))
+                .get(30, TimeUnit.SECONDS);
+
+        assertThat(result.getOutcome()).isEqualTo(MongoIndexBuildCoordinationResult.Outcome.ALREADY_PRESENT);
+        assertThat(result.getStatus()).isNull();
+    }
+
+    @Test
+    void takesOver_givenExpiredLease() throws Exception {
+        var locks = mongoClient.getDatabase(DATABASE_NAME).getCollection(MongoIndexBuildCoordinator.DEFAULT_LOCK_COLLECTION_NAME);
+        var stoppedInstanceLease = new MongoIndexBuildLease(locks, DATABASE_NAME + "." + COLLECTION_NAME, "stopped",
+                Duration.ofSeconds(2));
+        assertThat(stoppedInstanceLease.tryAcquire()).isTrue();
+
+        var result = createCoordinator("second", Duration.ofSeconds(2))
+                .ensureIndexes(List.of(SPECIFICATION))
+                .get(30, TimeUnit.SECONDS);
+
+        assertThat(result.getOutcome()).isEqualTo(MongoIndexBuildCoordinationResult.Outcome.BUILT);
+        assertThat(result.getStatus().getState()).isEqualTo(MongoIndexBuildState.DONE);
+        assertThat(stoppedInstanceLease.getHolder()).isNull();
+    }
+
+    @Test
+    void grantsLeaseToOneInstanceAtATime() {
+        var locks = mongoClient.getDatabase(DATABASE_NAME).getCollection(MongoIndexBuildCoordinator.DEFAULT_LOCK_COLLECTION_NAME);
+        var key = DATABASE_NAME + "." + COLLECTION_NAME;
+        var first = new MongoIndexBuildLease(locks, key, "first", Duration.ofMinutes(1));
+        var second = new MongoIndexBuildLease(locks, key, "second", Duration.ofMinutes(1));
+
+        assertThat(first.tryAcquire()).isTrue();
+        assertThat(second.tryAcquire()).isFalse();
+        assertThat(second.renew()).isFalse();
+        assertThat(first.getRemaining()).isPositive();
+
+        first.release();
+
+        assertThat(first.getRemaining()).isZero();
+        assertThat(second.tryAcquire()).isTrue();
+        assertThat(second.getHolder()).isEqualTo("second");
+    }
+
+    private MongoIndexBuildCoordinator createCoordinator(String instanceId, Duration leaseDuration) {
+        var mongoIndexBuildManager = new MongoIndexBuildManager(DATABASE_NAME, COLLECTION_NAME, mongoClient,
+                Duration.ofMillis(100));
+        var coordinator = new MongoIndexBuildCoordinator(DATABASE_NAME, COLLECTION_NAME, mongoClient,
+                mongoIndexBuildManager, instanceId, leaseDuration, Duration.ofMillis(100));
+        closeables.add(coordinator);
+        closeables.add(mongoIndexBuildManager);
+
+        return coordinator;
+    }
+}
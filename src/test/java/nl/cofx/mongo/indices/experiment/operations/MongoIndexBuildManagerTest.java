@@ -0,0 +1,250 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoIndexBuildManagerTest {
+
+    private static final String DATABASE_NAME = "mongo-index-test";
+    private static final String COLLECTION_NAME = "collection";
+    private static final String DEFINITION = "{ first: 1, second: 1 }";
+    private static final String HANG_INDEX_BUILD = "hangAfterStartingIndexBuildUnlocked";
+
+    /**
+     * Test commands are enabled to be able to hold index builds in progress with a fail point.
+     */
+    private final MongoDBContainer mongoDBContainer = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"))
+            .withCommand("--replSet", "docker-rs", "--setParameter", "enableTestCommands=1");
+
+    private MongoClient mongoClient;
+    private MongoIndexOperations mongoIndexOperations;
+    private MongoIndexBuildManager mongoIndexBuildManager;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBContainer.start();
+
+        mongoClient = MongoClients.create(mongoDBContainer.getConnectionString());
+        mongoIndexOperations = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient);
+        mongoIndexBuildManager = new MongoIndexBuildManager(DATABASE_NAME, COLLECTION_NAME, mongoClient, Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoIndexBuildManager.close();
+        mongoDBContainer.stop();
+    }
+
+    @Test
+    void buildsIndexesInBackground() throws Exception {
+        var specification = MongoIndexSpecification.builder()
+                .name("name")
+                .definition(DEFINITION)
+                .build();
+
+        var submitted = mongoIndexBuildManager.submit(List.of(specification));
+        assertThat(submitted.isAttached()).isFalse();
+
+        var completed = mongoIndexBuildManager.getCompletion(submitted.getId()).get(30, TimeUnit.SECONDS);
+        assertThat(completed.getState()).isEqualTo(MongoIndexBuildState.DONE);
+        assertThat(mongoIndexBuildManager.getStatus(submitted.getId())).isEqualTo(completed);
+        assertThat(mongoIndexOperations.findIndex(specification)).isNotNull();
+    }
+
+    @Test
+    void reportsFailedBuild() throws Exception {
+        mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .name("name1")
+                .definition(DEFINITION)
+                .build());
+
+        var submitted = mongoIndexBuildManager.submit(List.of(MongoIndexSpecification.builder()
+                .name("name2")
+                .definition(DEFINITION)
+                .build()));
+
+        var completed = mongoIndexBuildManager.getCompletion(submitted.getId()).get(30, TimeUnit.SECONDS);
+        assertThat(completed.getState()).isEqualTo(MongoIndexBuildState.FAILED);
+        assertThat(completed.getFailure()).isNotBlank();
+    }
+
+    @Test
+    void waitsForHealthyClusterBeforeBuilding() throws Exception {
+        var health = new AtomicReference<>(new MongoClusterHealth(Duration.ofMinutes(1), Duration.ZERO, "Lagging"));
+        try (var guardedBuildManager = new MongoIndexBuildManager(DATABASE_NAME, COLLECTION_NAME, mongoClient,
+                Duration.ofMillis(100), health::get)) {
+            var submitted = guardedBuildManager.submit(List.of(MongoIndexSpecification.builder()
+                    .definition(DEFINITION)
+                    .build()));
+
+            Thread.sleep(500);
+            var waiting = guardedBuildManager.getStatus(submitted.getId());
+            assertThat(waiting.getState()).isEqualTo(MongoIndexBuildState.QUEUED);
+            assertThat(waiting.getWaitingFor()).isEqualTo("Lagging");
+
+            health.set(MongoClusterHealth.HEALTHY);
+            var completed = guardedBuildManager.getCompletion(submitted.getId()).get(30, TimeUnit.SECONDS);
+            assertThat(completed.getState()).isEqualTo(MongoIndexBuildState.DONE);
+            assertThat(completed.getWaitingFor()).isNull();
+        }
+    }
+
+    @Test
+    void attachesToBuildInProgress() throws Exception {
+        var specification = MongoIndexSpecification.builder()
+                .name("name")
+                .definition(DEFINITION)
+                .build();
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).insertOne(new Document("first", 1));
+        configureFailPoint(HANG_INDEX_BUILD, "alwaysOn");
+        var creation = CompletableFuture.runAsync(() -> mongoIndexOperations.createIndex(specification));
+        awaitIndexBuildOperation();
+
+        var submitted = mongoIndexBuildManager.submit(List.of(specification));
+        assertThat(submitted.isAttached()).isTrue();
+        assertThat(submitted.getState()).isEqualTo(MongoIndexBuildState.BUILDING);
+        assertThat(submitted.getStartedAt()).isNotNull();
+
+        configureFailPoint(HANG_INDEX_BUILD, "off");
+        var completed = mongoIndexBuildManager.getCompletion(submitted.getId()).get(30, TimeUnit.SECONDS);
+        creation.get(30, TimeUnit.SECONDS);
+        assertThat(completed.getState()).isEqualTo(MongoIndexBuildState.DONE);
+        assertThat(completed.getEstimatedTimeRemaining()).isEqualTo(Duration.ZERO);
+        assertThat(mongoIndexOperations.findIndex(specification)).isNotNull();
+    }
+
+    @Test
+    void keepsFollowingBuildInProgress_givenBuildsInProgressCannotBeListed() throws Exception {
+        var specification = MongoIndexSpecification.builder()
+                .name("name")
+                .definition(DEFINITION)
+                .build();
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).insertOne(new Document("first", 1));
+        configureFailPoint(HANG_INDEX_BUILD, "alwaysOn");
+        var creation = CompletableFuture.runAsync(() -> mongoIndexOperations.createIndex(specification));
+        awaitIndexBuildOperation();
+        var submitted = mongoIndexBuildManager.submit(List.of(specification));
+        assertThat(submitted.isAttached()).isTrue();
+
+        mongoClient.getDatabase("admin").runCommand(new Document("configureFailPoint", "failCommand")
+                .append("mode", "alwaysOn")
+                .append("data", new Document("failCommands", List.of("currentOp")).append("errorCode", 2)));
+        Thread.sleep(500);
+        assertThat(mongoIndexBuildManager.getStatus(submitted.getId()).getState()).isEqualTo(MongoIndexBuildState.BUILDING);
+
+        configureFailPoint("failCommand", "off");
+        configureFailPoint(HANG_INDEX_BUILD, "off");
+        var completed = mongoIndexBuildManager.getCompletion(submitted.getId()).get(30, TimeUnit.SECONDS);
+        creation.get(30, TimeUnit.SECONDS);
+        assertThat(completed.getState()).isEqualTo(MongoIndexBuildState.DONE);
+    }
+
+    @Test
+    void abortsPausesAndResumesBuild_givenClusterBecomesUnhealthy() throws Exception {
+        var existing = MongoIndexSpecification.builder()
+                .name("existing")
+                .definition("{ second: 1 }")
+                .build();
+        var specification = MongoIndexSpecification.builder()
+                .name("name")
+                .definition(DEFINITION)
+                .build();
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).insertOne(new Document("first", 1));
+        mongoIndexOperations.createIndex(existing);
+
+        var health = new AtomicReference<>(MongoClusterHealth.HEALTHY);
+        try (var guardedBuildManager = new MongoIndexBuildManager(DATABASE_NAME, COLLECTION_NAME, mongoClient,
+                Duration.ofMillis(100), health::get)) {
+            configureFailPoint(HANG_INDEX_BUILD, "alwaysOn");
+            var submitted = guardedBuildManager.submit(List.of(existing, specification));
+            awaitIndexBuildOperation();
+
+            health.set(new MongoClusterHealth(Duration.ofMinutes(1), Duration.ZERO, "Lagging"));
+            awaitState(guardedBuildManager, submitted.getId(), MongoIndexBuildState.PAUSED);
+
+            var paused = guardedBuildManager.getStatus(submitted.getId());
+            assertThat(paused.getRestarts()).isEqualTo(1);
+            assertThat(paused.getWaitingFor()).isEqualTo("Lagging");
+            mongoIndexOperations.invalidateIndexCatalog();
+            assertThat(mongoIndexOperations.findIndex(existing)).isNotNull();
+            assertThat(mongoIndexOperations.findIndex(specification)).isNull();
+
+            configureFailPoint(HANG_INDEX_BUILD, "off");
+            health.set(MongoClusterHealth.HEALTHY);
+            var completed = guardedBuildManager.getCompletion(submitted.getId()).get(30, TimeUnit.SECONDS);
+            assertThat(completed.getState()).isEqualTo(MongoIndexBuildState.DONE);
+            assertThat(completed.getRestarts()).isEqualTo(1);
+            mongoIndexOperations.invalidateIndexCatalog();
+            assertThat(mongoIndexOperations.findIndex(existing)).isNotNull();
+            assertThat(mongoIndexOperations.findIndex(specification)).isNotNull();
+        }
+    }
+
+    @Test
+    void considersReplicaSetHealthyWithinThresholds() {
+        var guard = new MongoReplicaSetHealthGuard(DATABASE_NAME, COLLECTION_NAME, mongoClient,
+                MongoReplicaSetHealthGuard.Thresholds.builder()
+                        .maxProbeLatency(Duration.ofSeconds(10))
+                        .build());
+
+        var health = guard.check();
+
+        assertThat(health.isHealthy()).isTrue();
+        assertThat(health.getReplicationLag()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void considersReplicaSetUnhealthyWhenProbeIsTooSlow() {
+        var guard = new MongoReplicaSetHealthGuard(DATABASE_NAME, COLLECTION_NAME, mongoClient,
+                MongoReplicaSetHealthGuard.Thresholds.builder()
+                        .maxProbeLatency(Duration.ZERO)
+                        .build());
+
+        var health = guard.check();
+
+        assertThat(health.isHealthy()).isFalse();
+        assertThat(health.getProblem()).startsWith("Probe latency");
+    }
+
+    private void configureFailPoint(String failPoint, String mode) {
+        mongoClient.getDatabase("admin").runCommand(new Document("configureFailPoint", failPoint).append("mode", mode));
+    }
+
+    private static void awaitState(MongoIndexBuildManager buildManager, String id, MongoIndexBuildState state)
+            throws InterruptedException {
+        var deadline = Instant.now().plusSeconds(10);
+        while (buildManager.getStatus(id).getState() != state) {
+            assertThat(Instant.now()).isBefore(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private void awaitIndexBuildOperation() throws InterruptedException {
+        var deadline = Instant.now().plusSeconds(10);
+        while (findIndexBuildOperations().isEmpty()) {
+            assertThat(Instant.now()).isBefore(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private List<Document> findIndexBuildOperations() {
+        return mongoClient.getDatabase("admin")
+                .runCommand(new Document("currentOp", true).append("command.createIndexes", COLLECTION_NAME))
+                .getList("inprog", Document.class);
+    }
+}
@@ -0,0 +1,79 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoIndexBuildTest {
+
+    private static final MongoIndexSpecification SPECIFICATION = MongoIndexSpecification.builder()
+            .definition("{ first: 1 }")
+            .build();
+    private static final Instant STARTED_AT = Instant.parse("2023-01-01T00:00:00Z");
+
+    @Test
+    void estimatesTimeRemainingFromProgress() {
+        var build = new MongoIndexBuild("id", List.of(SPECIFICATION), List.of(SPECIFICATION));
+        build.start(STARTED_AT);
+
+        build.updateProgress(25, 100, STARTED_AT.plusSeconds(10));
+
+        var status = build.getStatus();
+        assertThat(status.getState()).isEqualTo(MongoIndexBuildState.BUILDING);
+        assertThat(status.getDone()).isEqualTo(25);
+        assertThat(status.getTotal()).isEqualTo(100);
+        assertThat(status.getEstimatedTimeRemaining()).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void doesNotEstimateTimeRemaining_givenNoProgress() {
+        var build = new MongoIndexBuild("id", List.of(SPECIFICATION), List.of(SPECIFICATION));
+        build.start(STARTED_AT);
+
+        build.updateProgress(0, 100, STARTED_AT.plusSeconds(10));
+
+        assertThat(build.getStatus().getEstimatedTimeRemaining()).isNull();
+    }
+
+    @Test
+    void estimatesFromStartOfCurrentAttempt_givenRestart() {
+        var build = new MongoIndexBuild("id", List.of(SPECIFICATION), List.of(SPECIFICATION));
+        build.start(STARTED_AT);
+        build.updateProgress(50, 100, STARTED_AT.plusSeconds(10));
+        build.requestAbort("Lagging");
+        build.pause();
+
+        var paused = build.getStatus();
+        assertThat(paused.getState()).isEqualTo(MongoIndexBuildState.PAUSED);
+        assertThat(paused.getDone()).isZero();
+        assertThat(paused.getEstimatedTimeRemaining()).isNull();
+        assertThat(paused.getRestarts()).isEqualTo(1);
+
+        var restartedAt = STARTED_AT.plusSeconds(60);
+        build.start(restartedAt);
+        build.updateProgress(50, 100, restartedAt.plusSeconds(20));
+
+        var restarted = build.getStatus();
+        assertThat(restarted.getStartedAt()).isEqualTo(STARTED_AT);
+        assertThat(restarted.getEstimatedTimeRemaining()).isEqualTo(Duration.ofSeconds(20));
+    }
+
+    @Test
+    void completesWithFullProgress_givenFinish() {
+        var build = new MongoIndexBuild("id", List.of(SPECIFICATION), List.of(SPECIFICATION));
+        build.start(STARTED_AT);
+        build.updateProgress(50, 100, STARTED_AT.plusSeconds(10));
+
+        build.finish(STARTED_AT.plusSeconds(20));
+
+        var completed = build.getCompletion().join();
+        assertThat(completed.getState()).isEqualTo(MongoIndexBuildState.DONE);
+        assertThat(completed.getDone()).isEqualTo(100);
+        assertThat(completed.getEstimatedTimeRemaining()).isEqualTo(Duration.ZERO);
+        assertThat(completed.getFinishedAt()).isEqualTo(STARTED_AT.plusSeconds(20));
+    }
+}
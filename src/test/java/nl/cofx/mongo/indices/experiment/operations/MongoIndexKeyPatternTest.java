@@ -0,0 +1,35 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoIndexKeyPatternTest {
+
+    @Test
+    void considersNumericallyEqualDirectionsEqual() {
+        var integerDirections = MongoIndexKeyPattern.parse("{ first: 1, second: -1 }");
+        var doubleDirections = MongoIndexKeyPattern.parse("{ first: 1.0, second: -1.0 }");
+
+        assertThat(integerDirections).isEqualTo(doubleDirections);
+        assertThat(integerDirections).hasSameHashCodeAs(doubleDirections);
+    }
+
+    @Test
+    void respectsFieldOrder() {
+        assertThat(MongoIndexKeyPattern.parse("{ first: 1, second: 1 }"))
+                .isNotEqualTo(MongoIndexKeyPattern.parse("{ second: 1, first: 1 }"));
+    }
+
+    @Test
+    void distinguishesIndexTypes() {
+        assertThat(MongoIndexKeyPattern.parse("{ first: 'hashed' }"))
+                .isNotEqualTo(MongoIndexKeyPattern.parse("{ first: 1 }"));
+    }
+
+    @Test
+    void derivesDefaultIndexName() {
+        assertThat(MongoIndexKeyPattern.parse("{ first: 1, second: -1.0, third: 'hashed' }").getDefaultIndexName())
+                .isEqualTo("first_1_second_-1_third_hashed");
+    }
+}
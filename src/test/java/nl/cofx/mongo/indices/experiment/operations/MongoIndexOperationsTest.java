@@ -1,12 +1,28 @@
 package nl.cofx.mongo.indices.experiment.operations;
 
+import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.utility.DockerImageName;
 
+import java.time.Duration;
+import java.util.List;
+
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexCreationResult.Status.ALREADY_EXISTS;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexCreationResult.Status.CREATED;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexCreationResult.Status.EXISTS_WITH_DIFFERENT_NAME;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexCreationResult.Status.NAME_ALREADY_IN_USE;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.CHANGE_VISIBILITY;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.CREATE;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.DROP;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.KEEP;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.KEEP_EQUIVALENT;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexPlanStep.Action.REPLACE;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -20,13 +36,14 @@ class MongoIndexOperationsTest {
 
     private final MongoDBContainer mongoDBContainer = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"));
 
+    private MongoClient mongoClient;
     private MongoIndexOperations mongoIndexOperations;
 
     @BeforeEach
     void setUp() {
         mongoDBContainer.start();
 
-        var mongoClient = MongoClients.create(mongoDBContainer.getConnectionString());
+        mongoClient = MongoClients.create(mongoDBContainer.getConnectionString());
         mongoIndexOperations = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient);
     }
 
@@ -189,4 +206,379 @@ class MongoIndexOperationsTest {
         assertThat(foundIndex.getName()).isEqualTo("name1");
         assertThat(foundIndex.getDefinition()).isEqualTo(EXPECTED_DEFINITION);
     }
+
+    @Test
+    void createsIndexesInSingleCommand() {
+        var first = MongoIndexSpecification.builder()
+                .name("name1")
+                .definition("{ first: 1 }")
+                .build();
+        var second = MongoIndexSpecification.builder()
+                .name("name2")
+                .definition("{ second: 1 }")
+                .build();
+
+        var results = mongoIndexOperations.createIndexes(List.of(first, second));
+
+        assertThat(results).extracting(MongoIndexCreationResult::getStatus).containsExactly(CREATED, CREATED);
+        assertThat(mongoIndexOperations.findIndex(first)).isNotNull();
+        assertThat(mongoIndexOperations.findIndex(second)).isNotNull();
+    }
+
+    @Test
+    void reportsExistingIndexes_whenCreatingIndexes() {
+        var existing = MongoIndexSpecification.builder()
+                .name("name1")
+                .definition("{ first: 1 }")
+                .build();
+        mongoIndexOperations.createIndex(existing);
+        var missing = MongoIndexSpecification.builder()
+                .name("name2")
+                .definition("{ second: 1 }")
+                .build();
+
+        var results = mongoIndexOperations.createIndexes(List.of(existing, missing));
+
+        assertThat(results).extracting(MongoIndexCreationResult::getStatus).containsExactly(ALREADY_EXISTS, CREATED);
+    }
+
+    @Test
+    void reportsConflictsPerIndex_whenCreatingIndexes() {
+        mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition("{ first: 1 }")
+                .build());
+        mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .name("name1")
+                .definition("{ second: 1 }")
+                .build());
+
+        var results = mongoIndexOperations.createIndexes(List.of(
+                MongoIndexSpecification.builder()
+                        .name(NAME)
+                        .definition("{ third: 1 }")
+                        .build(),
+                MongoIndexSpecification.builder()
+                        .name("name2")
+                        .definition("{ second: 1 }")
+                        .build(),
+                MongoIndexSpecification.builder()
+                        .name("name3")
+                        .definition("{ fourth: 1 }")
+                        .build()));
+
+        assertThat(results).extracting(MongoIndexCreationResult::getStatus)
+                .containsExactly(NAME_ALREADY_IN_USE, EXISTS_WITH_DIFFERENT_NAME, CREATED);
+    }
+
+    @Test
+    void reusesListedIndexes_untilCatalogIsInvalidated() {
+        var specification = MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .build();
+        mongoIndexOperations.createIndex(specification);
+        assertThat(mongoIndexOperations.findIndex(specification)).isNotNull();
+
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).dropIndex(NAME);
+        assertThat(mongoIndexOperations.findIndex(specification)).isNotNull();
+
+        mongoIndexOperations.invalidateIndexCatalog();
+        assertThat(mongoIndexOperations.findIndex(specification)).isNull();
+    }
+
+    @Test
+    void ignoresIndexDroppedByOtherClient_whenDeletingIndex() {
+        var specification = MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .build();
+        mongoIndexOperations.createIndex(specification);
+        assertThat(mongoIndexOperations.findIndex(specification)).isNotNull();
+
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).dropIndex(NAME);
+        mongoIndexOperations.deleteIndex(specification);
+
+        assertThat(mongoIndexOperations.findIndex(specification)).isNull();
+    }
+
+    @Test
+    void listsIndexesAgain_givenExpiredCatalog() {
+        var operationsWithoutCaching = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient, Duration.ZERO);
+        var specification = MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .build();
+        operationsWithoutCaching.createIndex(specification);
+        assertThat(operationsWithoutCaching.findIndex(specification)).isNotNull();
+
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).dropIndex(NAME);
+        assertThat(operationsWithoutCaching.findIndex(specification)).isNull();
+    }
+
+    @Test
+    void findsIndexByDefinition_givenNumericallyEqualDirections() {
+        mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .build());
+
+        var foundIndex = mongoIndexOperations.findIndex(MongoIndexSpecification.builder()
+                .definition("{ first: 1.0, second: { $numberLong: \"1\" } }")
+                .build());
+        assertThat(foundIndex).isNotNull();
+        assertThat(foundIndex.getName()).isEqualTo(NAME);
+    }
+
+    @Test
+    void plansDesiredState() {
+        mongoIndexOperations.createIndexes(List.of(
+                MongoIndexSpecification.builder().name("kept").definition("{ first: 1 }").build(),
+                MongoIndexSpecification.builder().name("equivalent").definition("{ second: 1 }").build(),
+                MongoIndexSpecification.builder().name("replaced").definition("{ third: 1 }").build(),
+                MongoIndexSpecification.builder().name("unmanaged").definition("{ fourth: 1 }").build()));
+
+        var plan = mongoIndexOperations.planIndexes(List.of(
+                MongoIndexSpecification.builder().name("kept").definition("{ first: 1 }").build(),
+                MongoIndexSpecification.builder().name("renamed").definition("{ second: 1 }").build(),
+                MongoIndexSpecification.builder().name("replaced").definition("{ third: -1 }").build(),
+                MongoIndexSpecification.builder().name("new").definition("{ fifth: 1 }").build()));
+
+        assertThat(plan.getSteps()).extracting(MongoIndexPlanStep::getAction)
+                .containsExactly(KEEP, KEEP_EQUIVALENT, REPLACE, CREATE, DROP);
+        assertThat(plan.getSteps(DROP)).extracting(step -> step.getExisting().getName()).containsExactly("unmanaged");
+        assertThat(plan.hasChanges()).isTrue();
+    }
+
+    @Test
+    void appliesDesiredState() {
+        mongoIndexOperations.createIndexes(List.of(
+                MongoIndexSpecification.builder().name("replaced").definition("{ third: 1 }").build(),
+                MongoIndexSpecification.builder().name("unmanaged").definition("{ fourth: 1 }").build()));
+        var desiredState = List.of(
+                MongoIndexSpecification.builder().name("replaced").definition("{ third: -1 }").build(),
+                MongoIndexSpecification.builder().name("new").definition("{ fifth: 1 }").build());
+
+        mongoIndexOperations.applyPlan(mongoIndexOperations.planIndexes(desiredState));
+
+        assertThat(mongoIndexOperations.findIndex(desiredState.get(0))).isNotNull();
+        assertThat(mongoIndexOperations.findIndex(desiredState.get(1))).isNotNull();
+        assertThat(mongoIndexOperations.findIndex(MongoIndexSpecification.builder().name("unmanaged").build())).isNull();
+        assertThat(mongoIndexOperations.findIndex(MongoIndexSpecification.builder().name("_id_").build())).isNotNull();
+        assertThat(mongoIndexOperations.planIndexes(desiredState).hasChanges()).isFalse();
+    }
+
+    @Test
+    void replacesUnnamedIndex_givenDesiredStateWithDifferentOptions() {
+        mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .definition(DEFINITION)
+                .build());
+        var desiredState = List.of(MongoIndexSpecification.builder()
+                .definition(DEFINITION)
+                .unique(true)
+                .build());
+
+        var plan = mongoIndexOperations.planIndexes(desiredState);
+        assertThat(plan.getSteps()).extracting(MongoIndexPlanStep::getAction).containsExactly(REPLACE);
+
+        mongoIndexOperations.applyPlan(plan);
+
+        var foundIndex = mongoIndexOperations.findIndex(MongoIndexSpecification.builder().name("first_1_second_1").build());
+        assertThat(foundIndex.isUnique()).isTrue();
+        assertThat(mongoIndexOperations.planIndexes(desiredState).hasChanges()).isFalse();
+    }
+
+    @Test
+    void replacesIndexWithSameKeys_givenDesiredStateWithOtherNameAndConflictingOptions() {
+        mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .name("foo")
+                .definition(DEFINITION)
+                .build());
+        var desiredState = List.of(MongoIndexSpecification.builder()
+                .name("bar")
+                .definition(DEFINITION)
+                .unique(true)
+                .build());
+
+        var plan = mongoIndexOperations.planIndexes(desiredState);
+        assertThat(plan.getSteps()).extracting(MongoIndexPlanStep::getAction).containsExactly(REPLACE);
+
+        mongoIndexOperations.applyPlan(plan);
+
+        assertThat(mongoIndexOperations.findIndex(MongoIndexSpecification.builder().name("foo").build())).isNull();
+        assertThat(mongoIndexOperations.findIndex(MongoIndexSpecification.builder().name("bar").build()).isUnique()).isTrue();
+        assertThat(mongoIndexOperations.planIndexes(desiredState).hasChanges()).isFalse();
+    }
+
+    @Test
+    void hidesIndex_givenDesiredStateThatOnlyDiffersInVisibility() {
+        mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .build());
+        var desiredState = List.of(MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .hidden(true)
+                .build());
+
+        var plan = mongoIndexOperations.planIndexes(desiredState);
+        assertThat(plan.getSteps()).extracting(MongoIndexPlanStep::getAction).contains(CHANGE_VISIBILITY);
+
+        mongoIndexOperations.applyPlan(plan);
+
+        assertThat(isHidden(NAME)).isTrue();
+        assertThat(mongoIndexOperations.planIndexes(desiredState).hasChanges()).isFalse();
+    }
+
+    @Test
+    void createsPartialIndex_givenFullIndexWithSameKeys() {
+        var full = MongoIndexSpecification.builder()
+                .name("full")
+                .definition(DEFINITION)
+                .build();
+        mongoIndexOperations.createIndex(full);
+        var partial = MongoIndexSpecification.builder()
+                .name("partial")
+                .definition(DEFINITION)
+                .partialFilterExpression("{ third: true }")
+                .build();
+
+        var results = mongoIndexOperations.createIndexes(List.of(full, partial));
+
+        assertThat(results).extracting(MongoIndexCreationResult::getStatus).containsExactly(ALREADY_EXISTS, CREATED);
+        assertThat(mongoIndexOperations.findIndex(MongoIndexSpecification.builder().name("full").build())).isNotNull();
+        var foundIndex = mongoIndexOperations.findIndex(MongoIndexSpecification.builder().name("partial").build());
+        assertThat(foundIndex.getPartialFilterExpression()).isEqualTo("{\"third\": true}");
+    }
+
+    @Test
+    void createsIndexWithPreferredName_givenExistingIndexWithDifferentOptions() {
+        mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .name("sparse")
+                .definition(DEFINITION)
+                .sparse(true)
+                .build());
+
+        mongoIndexOperations.createIndexWithPreferredName(MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .build());
+
+        assertThat(mongoIndexOperations.findIndex(MongoIndexSpecification.builder().name(NAME).build())).isNotNull();
+    }
+
+    @Test
+    void readsBackIndexOptions() {
+        var ttl = MongoIndexSpecification.builder()
+                .name("ttl")
+                .definition("{ createdAt: 1 }")
+                .expireAfterSeconds(3600L)
+                .build();
+        var collation = MongoIndexSpecification.builder()
+                .name("collation")
+                .definition("{ first: 1 }")
+                .collation("{ locale: 'en', strength: 2 }")
+                .build();
+        var wildcard = MongoIndexSpecification.builder()
+                .name("wildcard")
+                .definition("{ '$**': 1 }")
+                .wildcardProjection("{ first: 1 }")
+                .build();
+        var sparse = MongoIndexSpecification.builder()
+                .name("sparse")
+                .definition("{ second: 1 }")
+                .sparse(true)
+                .hidden(true)
+                .build();
+        var desiredState = List.of(ttl, collation, wildcard, sparse);
+
+        mongoIndexOperations.createIndexes(desiredState);
+
+        var foundTtl = mongoIndexOperations.findIndex(ttl);
+        assertThat(foundTtl).isNotNull();
+        assertThat(foundTtl.getExpireAfterSeconds()).isEqualTo(3600L);
+        var foundCollation = mongoIndexOperations.findIndex(collation);
+        assertThat(foundCollation).isNotNull();
+        assertThat(foundCollation.getCollation()).contains("\"locale\": \"en\"");
+        assertThat(mongoIndexOperations.findIndex(wildcard)).isNotNull();
+        var foundSparse = mongoIndexOperations.findIndex(sparse);
+        assertThat(foundSparse).isNotNull();
+        assertThat(foundSparse.isSparse()).isTrue();
+        assertThat(foundSparse.isHidden()).isTrue();
+        assertThat(mongoIndexOperations.planIndexes(desiredState).getSteps(CREATE)).isEmpty();
+        assertThat(mongoIndexOperations.planIndexes(desiredState).getSteps(REPLACE)).isEmpty();
+    }
+
+    @Test
+    void recordsTimersOfIndexOperations() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var instrumentedOperations = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient,
+                Duration.ofSeconds(30), meterRegistry);
+        var specification = MongoIndexSpecification.builder()
+                .definition(DEFINITION)
+                .build();
+
+        instrumentedOperations.createIndex(specification);
+        instrumentedOperations.findIndex(specification);
+        instrumentedOperations.deleteIndex(specification);
+
+        for (var operation : List.of("createIndex", "findIndex", "deleteIndex")) {
+            var timer = meterRegistry.get(MongoIndexOperationMetrics.TIMER_NAME)
+                    .tag("collection", COLLECTION_NAME)
+                    .tag("index", "first_1_second_1")
+                    .tag("operation", operation)
+                    .tag("exception", "none")
+                    .timer();
+            assertThat(timer.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void recordsOneTimerForBatchOfIndexes() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var instrumentedOperations = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient,
+                Duration.ofSeconds(30), meterRegistry);
+
+        instrumentedOperations.createIndexes(List.of(
+                MongoIndexSpecification.builder().definition("{ first: 1 }").build(),
+                MongoIndexSpecification.builder().definition("{ second: 1 }").build()));
+
+        var timers = meterRegistry.find(MongoIndexOperationMetrics.TIMER_NAME)
+                .tag("operation", "createIndexes")
+                .timers();
+        assertThat(timers).singleElement().satisfies(timer -> {
+            assertThat(timer.getId().getTag("index")).isEqualTo(MongoIndexOperationMetrics.BATCH_INDEX);
+            assertThat(timer.count()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void hidesAndUnhidesIndex() {
+        var specification = MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .build();
+        mongoIndexOperations.createIndex(specification);
+
+        assertThat(mongoIndexOperations.hideIndex(specification)).isTrue();
+        assertThat(isHidden(NAME)).isTrue();
+
+        assertThat(mongoIndexOperations.unhideIndex(specification)).isTrue();
+        assertThat(isHidden(NAME)).isFalse();
+    }
+
+    @Test
+    void reportsMissingIndex_whenHidingIndex() {
+        assertThat(mongoIndexOperations.hideIndex(MongoIndexSpecification.builder().name(NAME).build())).isFalse();
+    }
+
+    private boolean isHidden(String name) {
+        var indexes = mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).listIndexes();
+        for (var index : indexes) {
+            if (name.equals(index.getString("name"))) return index.getBoolean("hidden", false);
+        }
+
+        throw new AssertionError("No index named " + name);
+    }
 }
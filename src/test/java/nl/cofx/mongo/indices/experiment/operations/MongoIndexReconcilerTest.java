@@ -0,0 +1,59 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoIndexReconcilerTest {
+
+    private static final String DATABASE_NAME = "mongo-index-test";
+    private static final MongoIndexSpecification SPECIFICATION = MongoIndexSpecification.builder()
+            .name("name")
+            .definition("{ first: 1, second: 1 }")
+            .build();
+
+    private final MongoDBContainer mongoDBContainer = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"));
+
+    private MongoClient mongoClient;
+    private MongoIndexReconciler mongoIndexReconciler;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBContainer.start();
+
+        mongoClient = MongoClients.create(mongoDBContainer.getConnectionString());
+        mongoIndexReconciler = new MongoIndexReconciler(DATABASE_NAME, mongoClient, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoDBContainer.stop();
+    }
+
+    @Test
+    void reconcilesIndexesOfMatchingCollections() {
+        var database = mongoClient.getDatabase(DATABASE_NAME);
+        List.of("tenant1", "tenant2", "tenant3", "other").forEach(database::createCollection);
+        new MongoIndexOperations(DATABASE_NAME, "tenant2", mongoClient).createIndex(SPECIFICATION);
+
+        var report = mongoIndexReconciler.reconcile(Pattern.compile("tenant\\d+"), List.of(SPECIFICATION));
+
+        assertThat(report.isSuccessful()).isTrue();
+        assertThat(report.getOutcomes()).extracting(MongoIndexReconciliationOutcome::getCollectionName)
+                .containsExactlyInAnyOrder("tenant1", "tenant2", "tenant3");
+        for (var collectionName : List.of("tenant1", "tenant2", "tenant3")) {
+            assertThat(new MongoIndexOperations(DATABASE_NAME, collectionName, mongoClient).findIndex(SPECIFICATION))
+                    .isNotNull();
+        }
+        assertThat(new MongoIndexOperations(DATABASE_NAME, "other", mongoClient).findIndex(SPECIFICATION)).isNull();
+    }
+}
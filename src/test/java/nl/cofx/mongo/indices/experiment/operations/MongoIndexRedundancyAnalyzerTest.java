@@ -0,0 +1,99 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoIndexRedundancyAnalyzerTest {
+
+    private static final String DATABASE_NAME = "mongo-index-test";
+    private static final String COLLECTION_NAME = "collection";
+
+    private final MongoDBContainer mongoDBContainer = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"));
+
+    private MongoClient mongoClient;
+    private MongoIndexOperations mongoIndexOperations;
+    private MongoIndexRedundancyAnalyzer mongoIndexRedundancyAnalyzer;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBContainer.start();
+
+        mongoClient = MongoClients.create(mongoDBContainer.getConnectionString());
+        mongoIndexOperations = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient);
+        mongoIndexRedundancyAnalyzer = new MongoIndexRedundancyAnalyzer(DATABASE_NAME, COLLECTION_NAME, mongoClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoDBContainer.stop();
+    }
+
+    @Test
+    void reportsIndexesThatArePrefixesOfOtherIndexes() {
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).insertMany(IntStream.range(0, 100)
+                .mapToObj(i -> new Document("first", i).append("second", i).append("third", i))
+                .toList());
+        mongoIndexOperations.createIndexes(List.of(
+                MongoIndexSpecification.builder().name("prefix").definition("{ first: 1 }").build(),
+                MongoIndexSpecification.builder().name("compound").definition("{ first: 1, second: 1 }").build(),
+                MongoIndexSpecification.builder().name("unique").definition("{ second: 1 }").unique(true).build(),
+                MongoIndexSpecification.builder().name("secondCompound").definition("{ second: 1, third: 1 }").build(),
+                MongoIndexSpecification.builder().name("descending").definition("{ third: -1 }").build(),
+                MongoIndexSpecification.builder().name("thirdCompound").definition("{ third: 1, first: 1 }").build()));
+
+        var report = mongoIndexRedundancyAnalyzer.analyze();
+
+        assertThat(report.getRedundancies()).hasSize(1);
+        var redundancy = report.getRedundancies().get(0);
+        assertThat(redundancy.getIndex().getName()).isEqualTo("prefix");
+        assertThat(redundancy.getCoveredBy().getName()).isEqualTo("compound");
+        assertThat(redundancy.getReason()).isEqualTo(MongoIndexRedundancy.Reason.PREFIX);
+        assertThat(report.getEstimatedBytesSaved()).isPositive();
+    }
+
+    @Test
+    void doesNotReportIndexesThatHoldDocumentsMissingFromOtherIndexes() {
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).insertMany(IntStream.range(0, 100)
+                .mapToObj(i -> new Document("first", i).append("second", i).append("third", i % 2 == 0))
+                .toList());
+        mongoIndexOperations.createIndexes(List.of(
+                MongoIndexSpecification.builder().name("prefix").definition("{ first: 1 }").build(),
+                MongoIndexSpecification.builder().name("partial").definition("{ first: 1, second: 1 }")
+                        .partialFilterExpression("{ third: true }").build(),
+                MongoIndexSpecification.builder().name("sparse").definition("{ first: 1, third: 1 }")
+                        .sparse(true).build(),
+                MongoIndexSpecification.builder().name("collation").definition("{ first: 1, second: -1 }")
+                        .collation("{ locale: 'en' }").build()));
+
+        var report = mongoIndexRedundancyAnalyzer.analyze();
+
+        assertThat(report.getRedundancies()).isEmpty();
+    }
+
+    @Test
+    void doesNotReportWildcardIndexesWithDifferentProjections() {
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).insertMany(IntStream.range(0, 100)
+                .mapToObj(i -> new Document("first", i).append("second", i))
+                .toList());
+        mongoIndexOperations.createIndexes(List.of(
+                MongoIndexSpecification.builder().name("wildcardFirst").definition("{ '$**': 1 }")
+                        .wildcardProjection("{ first: 1 }").build(),
+                MongoIndexSpecification.builder().name("wildcardSecond").definition("{ '$**': 1 }")
+                        .wildcardProjection("{ second: 1 }").build()));
+
+        var report = mongoIndexRedundancyAnalyzer.analyze();
+
+        assertThat(report.getRedundancies()).isEmpty();
+    }
+}
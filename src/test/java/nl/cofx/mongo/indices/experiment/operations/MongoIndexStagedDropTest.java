@@ -0,0 +1,102 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import nl.cofx.mongo.indices.experiment.explain.QueryPlan;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexStagedDropResult.Outcome.ALREADY_HIDDEN;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexStagedDropResult.Outcome.DROPPED;
+import static nl.cofx.mongo.indices.experiment.operations.MongoIndexStagedDropResult.Outcome.RESTORED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoIndexStagedDropTest {
+
+    private static final String DATABASE_NAME = "mongo-index-test";
+    private static final String COLLECTION_NAME = "collection";
+    private static final MongoIndexStagedDrop.Settings SETTINGS = MongoIndexStagedDrop.Settings.builder()
+            .window(Duration.ofMillis(500))
+            .sampleInterval(Duration.ofMillis(100))
+            .build();
+
+    private final MongoDBContainer mongoDBContainer = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"));
+
+    private MongoClient mongoClient;
+    private MongoIndexOperations mongoIndexOperations;
+    private MongoIndexStagedDrop mongoIndexStagedDrop;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBContainer.start();
+
+        mongoClient = MongoClients.create(mongoDBContainer.getConnectionString());
+        mongoIndexOperations = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient);
+        mongoIndexStagedDrop = new MongoIndexStagedDrop(mongoIndexOperations, this::explainQueries, SETTINGS);
+
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).insertMany(IntStream.range(0, 1_000)
+                .mapToObj(i -> new Document("first", i).append("second", i))
+                .toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoDBContainer.stop();
+    }
+
+    private Map<String, QueryPlan> explainQueries() {
+        var explanation = mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME)
+                .find(new Document("first", 42))
+                .explain(ExplainVerbosity.EXECUTION_STATS);
+
+        return Map.of("findByFirst", QueryPlan.from(explanation));
+    }
+
+    @Test
+    void dropsUnusedIndex() throws InterruptedException {
+        var specification = MongoIndexSpecification.builder().name("second").definition("{ second: 1 }").build();
+        mongoIndexOperations.createIndexes(List.of(
+                MongoIndexSpecification.builder().name("first").definition("{ first: 1 }").build(),
+                specification));
+
+        var result = mongoIndexStagedDrop.run(specification);
+
+        assertThat(result.getOutcome()).isEqualTo(DROPPED);
+        assertThat(mongoIndexOperations.findIndex(specification)).isNull();
+    }
+
+    @Test
+    void restoresIndexThatQueriesNeed() throws InterruptedException {
+        var specification = MongoIndexSpecification.builder().name("first").definition("{ first: 1 }").build();
+        mongoIndexOperations.createIndex(specification);
+
+        var result = mongoIndexStagedDrop.run(specification);
+
+        assertThat(result.getOutcome()).isEqualTo(RESTORED);
+        assertThat(result.getRegressions()).singleElement().asString().contains("findByFirst");
+        assertThat(mongoIndexOperations.findIndex(specification)).isNotNull();
+        assertThat(explainQueries().get("findByFirst").isCollectionScan()).isFalse();
+    }
+
+    @Test
+    void leavesAlreadyHiddenIndexAsIs() throws InterruptedException {
+        var specification = MongoIndexSpecification.builder().name("first").definition("{ first: 1 }").build();
+        mongoIndexOperations.createIndex(specification);
+        mongoIndexOperations.hideIndex(specification);
+
+        var result = mongoIndexStagedDrop.run(specification);
+
+        assertThat(result.getOutcome()).isEqualTo(ALREADY_HIDDEN);
+        assertThat(mongoIndexOperations.findIndex(specification).isHidden()).isTrue();
+    }
+}
@@ -0,0 +1,66 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MongoIndexUsageCollectorTest {
+
+    private static final String DATABASE_NAME = "mongo-index-test";
+    private static final String COLLECTION_NAME = "collection";
+
+    private final MongoDBContainer mongoDBContainer = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"));
+
+    private MongoClient mongoClient;
+    private MongoIndexUsageCollector mongoIndexUsageCollector;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBContainer.start();
+
+        mongoClient = MongoClients.create(mongoDBContainer.getConnectionString());
+        mongoIndexUsageCollector = new MongoIndexUsageCollector(DATABASE_NAME, List.of(COLLECTION_NAME), mongoClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoIndexUsageCollector.close();
+        mongoDBContainer.stop();
+    }
+
+    @Test
+    void flagsIndexesWithoutOperations() {
+        new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient).createIndexes(List.of(
+                MongoIndexSpecification.builder().name("used").definition("{ first: 1 }").build(),
+                MongoIndexSpecification.builder().name("unused").definition("{ second: 1 }").build()));
+        var collection = mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME);
+        collection.insertOne(new Document("first", 1).append("second", 2));
+
+        mongoIndexUsageCollector.sample();
+        var moment = Instant.now();
+        collection.find(new Document("first", 1)).hint(new Document("first", 1)).first();
+        mongoIndexUsageCollector.sample();
+
+        assertThat(mongoIndexUsageCollector.getUsage())
+                .filteredOn(usage -> usage.getIndex().getName().equals("used"))
+                .singleElement()
+                .satisfies(usage -> {
+                    assertThat(usage.getHistory()).hasSize(2);
+                    assertThat(usage.getLatestSample().getOps()).isPositive();
+                });
+        assertThat(mongoIndexUsageCollector.findUnusedSince(moment))
+                .extracting(usage -> usage.getIndex().getName())
+                .contains("unused")
+                .doesNotContain("used");
+    }
+}
@@ -0,0 +1,125 @@
+package nl.cofx.mongo.indices.experiment.operations;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReactiveMongoIndexOperationsTest {
+
+    private static final String DATABASE_NAME = "mongo-index-test";
+    private static final String COLLECTION_NAME = "collection";
+    private static final String NAME = "name";
+    private static final String DEFINITION = "{ first: 1, second: 1 }";
+    private static final String EXPECTED_DEFINITION = "{\"first\": 1, \"second\": 1}";
+
+    /**
+     * Test commands are enabled to be able to make commands fail with a fail point.
+     */
+    private final MongoDBContainer mongoDBContainer = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"))
+            .withCommand("--replSet", "docker-rs", "--setParameter", "enableTestCommands=1");
+
+    private MongoClient mongoClient;
+    private ReactiveMongoIndexOperations mongoIndexOperations;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBContainer.start();
+
+        mongoClient = MongoClients.create(mongoDBContainer.getConnectionString());
+        mongoIndexOperations = new ReactiveMongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoDBContainer.stop();
+    }
+
+    @Test
+    void createsIndex() {
+        var specification = MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .build();
+        mongoIndexOperations.createIndex(specification).block();
+
+        var foundIndex = mongoIndexOperations.findIndex(specification).block();
+        assertThat(foundIndex).isNotNull();
+        assertThat(foundIndex.getName()).isEqualTo(NAME);
+        assertThat(foundIndex.getDefinition()).isEqualTo(EXPECTED_DEFINITION);
+    }
+
+    @Test
+    void throws_givenExistingIndexWithDifferentName() {
+        mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .name("name1")
+                .definition(DEFINITION)
+                .build()).block();
+
+        assertThatThrownBy(() -> mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .name("name2")
+                .definition(DEFINITION)
+                .build()).block()).isInstanceOf(IndexExistsWithDifferentName.class);
+    }
+
+    @Test
+    void deletesIndexByDefinition() {
+        mongoIndexOperations.createIndex(MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .build()).block();
+
+        var definitionOnlySpecification = MongoIndexSpecification.builder()
+                .definition(DEFINITION)
+                .build();
+        mongoIndexOperations.deleteIndex(definitionOnlySpecification).block();
+
+        assertThat(mongoIndexOperations.findIndex(definitionOnlySpecification).block()).isNull();
+    }
+
+    @Test
+    void ignoresIndexDroppedConcurrently_whenDeletingIndex() {
+        var specification = MongoIndexSpecification.builder()
+                .name(NAME)
+                .definition(DEFINITION)
+                .build();
+        mongoIndexOperations.createIndex(specification).block();
+        Mono.from(mongoClient.getDatabase("admin").runCommand(new Document("configureFailPoint", "failCommand")
+                .append("mode", new Document("times", 1))
+                .append("data", new Document("failCommands", List.of("dropIndexes")).append("errorCode", 27))))
+                .block();
+
+        assertThatCode(() -> mongoIndexOperations.deleteIndex(specification).block()).doesNotThrowAnyException();
+    }
+
+    @Test
+    void doesNotCreateIndexWithPreferredName_givenExistingIndex() {
+        var existingIndex = MongoIndexSpecification.builder()
+                .name("name1")
+                .definition(DEFINITION)
+                .build();
+        mongoIndexOperations.createIndex(existingIndex).block();
+
+        mongoIndexOperations.createIndexWithPreferredName(MongoIndexSpecification.builder()
+                .name("name2")
+                .definition(DEFINITION)
+                .build()).block();
+
+        var foundIndex = mongoIndexOperations.findIndex(MongoIndexSpecification.builder()
+                .definition(DEFINITION)
+                .build()).block();
+        assertThat(foundIndex).isNotNull();
+        assertThat(foundIndex.getName()).isEqualTo("name1");
+    }
+}
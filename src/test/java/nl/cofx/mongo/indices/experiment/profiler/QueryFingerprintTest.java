@@ -0,0 +1,66 @@
+package nl.cofx.mongo.indices.experiment.profiler;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryFingerprintTest {
+
+    private static final String NAMESPACE = "test.randomData";
+
+    @Test
+    void stripsValues() {
+        var first = QueryFingerprint.of(profileEntry("query",
+                "{ find: 'randomData', filter: { randomString: 'a', randomLong: { $gt: 1 } }, sort: { randomLong: -1 } }"));
+        var second = QueryFingerprint.of(profileEntry("query",
+                "{ find: 'randomData', filter: { randomLong: { $gt: 2 }, randomString: 'b' }, sort: { randomLong: -1 } }"));
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first.getOperation()).isEqualTo("find");
+        assertThat(first.getShape()).isEqualTo(
+                "{\"filter\": {\"randomLong\": {\"$gt\": \"?\"}, \"randomString\": \"?\"}, \"sort\": {\"randomLong\": -1}}");
+    }
+
+    @Test
+    void keepsOperatorsAndLogicalStructure() {
+        var fingerprint = QueryFingerprint.of(profileEntry("query",
+                "{ find: 'randomData', filter: { $or: [{ randomBoolean: true }, { randomLong: { $in: [1, 2, 3] } }] } }"));
+
+        assertThat(fingerprint.getShape()).isEqualTo(
+                "{\"filter\": {\"$or\": [{\"randomBoolean\": \"?\"}, {\"randomLong\": {\"$in\": \"?\"}}]}}");
+    }
+
+    @Test
+    void distinguishesSortDirections() {
+        var ascending = QueryFingerprint.of(profileEntry("query", "{ find: 'randomData', filter: {}, sort: { randomLong: 1 } }"));
+        var descending = QueryFingerprint.of(profileEntry("query", "{ find: 'randomData', filter: {}, sort: { randomLong: -1 } }"));
+
+        assertThat(ascending).isNotEqualTo(descending);
+    }
+
+    @Test
+    void attributesGetMoreToOriginatingCommand() {
+        var entry = profileEntry("getmore", "{ getMore: 1, collection: 'randomData' }")
+                .append("originatingCommand", Document.parse("{ find: 'randomData', filter: { randomLong: 5 } }"));
+
+        var fingerprint = QueryFingerprint.of(entry);
+
+        assertThat(fingerprint.getOperation()).isEqualTo("find");
+        assertThat(fingerprint.getShape()).isEqualTo("{\"filter\": {\"randomLong\": \"?\"}}");
+    }
+
+    @Test
+    void identifiesWritesByOperation() {
+        var fingerprint = QueryFingerprint.of(profileEntry("update", "{ q: { randomString: 'a' }, u: { $set: { randomLong: 1 } } }"));
+
+        assertThat(fingerprint.getOperation()).isEqualTo("update");
+        assertThat(fingerprint.getShape()).isEqualTo("{\"filter\": {\"randomString\": \"?\"}}");
+    }
+
+    private static Document profileEntry(String operation, String command) {
+        return new Document("op", operation)
+                .append("ns", NAMESPACE)
+                .append("command", Document.parse(command));
+    }
+}
@@ -0,0 +1,101 @@
+package nl.cofx.mongo.indices.experiment.profiler;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryProfilerTest {
+
+    private static final String DATABASE_NAME = "mongo-profiler-test";
+    private static final String COLLECTION_NAME = "collection";
+    private static final String NAMESPACE = DATABASE_NAME + "." + COLLECTION_NAME;
+
+    private final MongoDBContainer mongoDBContainer = new MongoDBContainer(DockerImageName.parse("mongo:6.0.1"));
+
+    private MongoClient mongoClient;
+    private SlowQueryProfiler slowQueryProfiler;
+
+    @BeforeEach
+    void setUp() {
+        mongoDBContainer.start();
+
+        mongoClient = MongoClients.create(mongoDBContainer.getConnectionString());
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).insertMany(IntStream.range(0, 100)
+                .mapToObj(i -> new Document("first", i).append("second", i))
+                .toList());
+        mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).createIndex(new Document("second", 1));
+
+        slowQueryProfiler = new SlowQueryProfiler(mongoClient, List.of(DATABASE_NAME), 0, Duration.ofMillis(100));
+        slowQueryProfiler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        slowQueryProfiler.close();
+        mongoDBContainer.stop();
+    }
+
+    @Test
+    void aggregatesQueriesPerFingerprint() throws InterruptedException {
+        var collection = mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME);
+        for (var i = 0; i < 5; ++i) {
+            collection.find(new Document("first", i)).first();
+            collection.find(new Document("second", new Document("$gt", i))).first();
+        }
+
+        var statistics = awaitStatistics(2, 10);
+
+        var collectionScan = findByShape(statistics, "{\"filter\": {\"first\": \"?\"}}");
+        assertThat(collectionScan.getFingerprint().getNamespace()).isEqualTo(NAMESPACE);
+        assertThat(collectionScan.getFingerprint().getOperation()).isEqualTo("find");
+        assertThat(collectionScan.getCount()).isEqualTo(5);
+        assertThat(collectionScan.getCollectionScans()).isEqualTo(5);
+        assertThat(collectionScan.getIndexesUsed()).isEmpty();
+
+        var indexScan = findByShape(statistics, "{\"filter\": {\"second\": {\"$gt\": \"?\"}}}");
+        assertThat(indexScan.getCollectionScans()).isZero();
+        assertThat(indexScan.getIndexesUsed()).containsEntry("IXSCAN { second: 1 }", 5L);
+    }
+
+    @Test
+    void restoresProfilingLevelWhenClosed() {
+        slowQueryProfiler.close();
+
+        var status = mongoClient.getDatabase(DATABASE_NAME).runCommand(new Document("profile", -1));
+        assertThat(status.get("was", Number.class).intValue()).isZero();
+    }
+
+    private List<SlowQueryStatistics> awaitStatistics(int fingerprints, long count) throws InterruptedException {
+        var deadline = Instant.now().plusSeconds(30);
+        while (true) {
+            var statistics = slowQueryProfiler.getStatistics().stream()
+                    .filter(statistic -> statistic.getFingerprint().getNamespace().equals(NAMESPACE))
+                    .toList();
+            var total = statistics.stream().mapToLong(SlowQueryStatistics::getCount).sum();
+            if (statistics.size() >= fingerprints && total >= count || Instant.now().isAfter(deadline)) {
+                return statistics;
+            }
+
+            Thread.sleep(100);
+        }
+    }
+
+    private static SlowQueryStatistics findByShape(List<SlowQueryStatistics> statistics, String shape) {
+        return statistics.stream()
+                .filter(statistic -> statistic.getFingerprint().getShape().equals(shape))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No statistics for " + shape + " in " + statistics));
+    }
+}
@@ -0,0 +1,152 @@
+package nl.cofx.mongo.indices.experiment.rolling;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClients;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexOperations;
+import nl.cofx.mongo.indices.experiment.operations.MongoIndexSpecification;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs a replica set of three {@code mongod} processes on this machine,
+ * using the binary at {@code MONGOD_BINARY}.
+ */
+@EnabledIfEnvironmentVariable(named = "MONGOD_BINARY", matches = ".+")
+class RollingIndexBuildOrchestratorTest {
+
+    private static final String REPLICA_SET_NAME = "rolling";
+    private static final String DATABASE_NAME = "mongo-index-test";
+    private static final String COLLECTION_NAME = "collection";
+    private static final int FIRST_PORT = 27217;
+
+    @TempDir
+    private Path dataDirectory;
+
+    private RollingIndexBuildProperties properties;
+    private LocalMongodProcessController processController;
+
+    @BeforeEach
+    void startReplicaSet() throws Exception {
+        properties = new RollingIndexBuildProperties();
+        properties.setReplicaSetName(REPLICA_SET_NAME);
+        properties.setMongodBinary(System.getenv("MONGOD_BINARY"));
+        properties.setCatchUpTimeout(Duration.ofMinutes(2));
+
+        var members = new ArrayList<RollingIndexBuildProperties.Member>();
+        for (var i = 0; i < 3; ++i) {
+            var member = new RollingIndexBuildProperties.Member();
+            member.setPort(FIRST_PORT + i);
+            member.setStandalonePort(FIRST_PORT + 100 + i);
+            member.setDbPath(Files.createDirectory(dataDirectory.resolve("member" + i)).toString());
+            members.add(member);
+        }
+        properties.setMembers(members);
+
+        processController = new LocalMongodProcessController(properties.getMongodBinary(), REPLICA_SET_NAME);
+        members.forEach(processController::startReplicaSetMember);
+
+        var config = new Document("_id", REPLICA_SET_NAME)
+                .append("members", IntStream.range(0, members.size())
+                        .mapToObj(i -> new Document("_id", i).append("host", members.get(i).getAddress()))
+                        .toList());
+        try (var mongoClient = MemberConnections.connect("localhost", FIRST_PORT)) {
+            mongoClient.getDatabase("admin").runCommand(new Document("replSetInitiate", config));
+        }
+
+        try (var mongoClient = MongoClients.create(getConnectionString())) {
+            var deadline = Instant.now().plus(Duration.ofMinutes(1));
+            while (true) {
+                try {
+                    mongoClient.getDatabase(DATABASE_NAME).getCollection(COLLECTION_NAME).insertMany(IntStream.range(0, 1_000)
+                            .mapToObj(i -> new Document("first", i).append("second", -i))
+                            .toList());
+                    break;
+                } catch (MongoException e) {
+                    if (Instant.now().isAfter(deadline)) throw e;
+                    Thread.sleep(500);
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    void stopReplicaSet() {
+        for (var member : properties.getMembers()) {
+            processController.stop(member, false);
+        }
+    }
+
+    private String getConnectionString() {
+        var addresses = properties.getMembers().stream()
+                .map(RollingIndexBuildProperties.Member::getAddress)
+                .toList();
+
+        return "mongodb://%s/?replicaSet=%s".formatted(String.join(",", addresses), REPLICA_SET_NAME);
+    }
+
+    @Test
+    void buildsIndexOnEveryMember() {
+        var specification = MongoIndexSpecification.builder()
+                .name("rolling")
+                .definition("{ first: 1, second: 1 }")
+                .build();
+
+        var orchestrator = new RollingIndexBuildOrchestrator(properties, processController);
+        orchestrator.run(DATABASE_NAME, COLLECTION_NAME, List.of(specification));
+
+        for (var member : properties.getMembers()) {
+            try (var mongoClient = MemberConnections.connect(member.getHost(), member.getPort())) {
+                var mongoIndexOperations = new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient);
+                assertThat(mongoIndexOperations.findIndex(specification)).isNotNull();
+            }
+        }
+    }
+
+    @Test
+    void restoresMemberToReplicaSet_givenFailingBuild() throws InterruptedException {
+        try (var mongoClient = MongoClients.create(getConnectionString())) {
+            new MongoIndexOperations(DATABASE_NAME, COLLECTION_NAME, mongoClient).createIndex(MongoIndexSpecification.builder()
+                    .name("rolling")
+                    .definition("{ second: 1 }")
+                    .build());
+        }
+        var conflictingSpecification = MongoIndexSpecification.builder()
+                .name("rolling")
+                .definition("{ first: 1, second: 1 }")
+                .build();
+
+        var orchestrator = new RollingIndexBuildOrchestrator(properties, processController);
+
+        assertThatThrownBy(() -> orchestrator.run(DATABASE_NAME, COLLECTION_NAME, List.of(conflictingSpecification)))
+                .isInstanceOf(RollingIndexBuildFailed.class)
+                .hasMessageContaining("Build indexes");
+        for (var member : properties.getMembers()) {
+            awaitReplicaSetMember(member);
+        }
+    }
+
+    private static void awaitReplicaSetMember(RollingIndexBuildProperties.Member member) throws InterruptedException {
+        var deadline = Instant.now().plus(Duration.ofMinutes(1));
+        try (var mongoClient = MemberConnections.connect(member.getHost(), member.getPort())) {
+            while (!REPLICA_SET_NAME.equals(mongoClient.getDatabase("admin").runCommand(new Document("hello", 1)).getString("setName"))) {
+                assertThat(Instant.now()).isBefore(deadline);
+                Thread.sleep(500);
+            }
+        }
+    }
+}